@@ -1,11 +1,26 @@
 package com.android.lewis.longestword;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Enumeration;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /*
     A Java Enumeration implementation to return combinations of characters in any string (at least one-character long), without any duplication caused by repeated characters.
@@ -27,10 +42,27 @@ import java.util.NoSuchElementException;
 
 public class Combinations implements Enumeration<String> {
 
+    private static final long FINGERPRINT_SEED = 0x6A09E667F3BCC908L;
+    private static final long FINGERPRINT_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
     private List<CombinationCharDomain> combinationCharDomains = new ArrayList<CombinationCharDomain>();
     private int combinationCharCount;
     private int startChar = 0;
     private StringBuilder currentCombination;
+    private String domainString;
+    private long[] prefixFingerprints;
+    private char[] domainChars;
+    private int[] domainCounts;
+    private BigInteger count;
+
+    /*
+        Callback receiving each combination in turn. The same buffer is passed on every call and is only valid
+        for the duration of the call; copy the first length characters if they need to be kept.
+     */
+    public interface CombinationVisitor
+    {
+        void visit(char[] combination, int length);
+    }
 
     public Combinations (String s, int combinationCharCount)
     {
@@ -59,7 +91,159 @@ public class Combinations implements Enumeration<String> {
             this.combinationCharDomains.add(new CombinationCharDomain(i));
         }
         this.combinationCharCount = combinationCharCount;
+        this.domainString = s;
+        this.prefixFingerprints = new long[combinationCharCount + 1];
+        this.prefixFingerprints[0] = FINGERPRINT_SEED;
         this.currentCombination = new StringBuilder(s.substring(0, combinationCharCount));
+
+        List<Map.Entry<Character, Integer>> charMapList = this.combinationCharDomains.get(0).charMapList;
+        this.domainChars = new char[charMapList.size()];
+        this.domainCounts = new int[charMapList.size()];
+        for (int i = 0; i < charMapList.size(); i++)
+        {
+            this.domainChars[i] = charMapList.get(i).getKey();
+            this.domainCounts[i] = charMapList.get(i).getValue();
+        }
+    }
+
+    /*
+        Snapshot of the enumeration position: the domain string and character count, startChar, the index
+        reached in every domain and the current buffer. The domains themselves are rebuilt from these on restore.
+        The file holds these fields and nothing else, so loading one never creates any other object.
+     */
+    public static class Cursor
+    {
+        private static final int FILE_MAGIC = 0x43435552; // "CCUR"
+
+        private String domainString;
+        private int charCount;
+        private int startChar;
+        private int[] domainIndexes;
+        private String current;
+
+        private static String readChars(DataInputStream in, int length) throws IOException
+        {
+            if (length < 0)
+            {
+                throw new IOException("Negative string length in cursor file");
+            }
+            StringBuilder chars = new StringBuilder();
+            for (int i = 0; i < length; i++)
+            {
+                chars.append(in.readChar());
+            }
+            return chars.toString();
+        }
+
+        public static Cursor load(File file) throws IOException
+        {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try
+            {
+                if (in.readInt() != FILE_MAGIC)
+                {
+                    throw new IOException("Not a combination cursor file");
+                }
+                Cursor cursor = new Cursor();
+                cursor.domainString = readChars(in, in.readInt());
+                cursor.charCount = in.readInt();
+                if (cursor.charCount <= 0 || cursor.charCount > cursor.domainString.length())
+                {
+                    throw new IOException("Character count in cursor file is out of range");
+                }
+                cursor.startChar = in.readInt();
+                cursor.domainIndexes = new int[cursor.charCount];
+                for (int i = 0; i < cursor.charCount; i++)
+                {
+                    cursor.domainIndexes[i] = in.readInt();
+                }
+                cursor.current = readChars(in, cursor.charCount);
+                return cursor;
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+
+        public void save(File file) throws IOException
+        {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            try
+            {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(this.domainString.length());
+                out.writeChars(this.domainString);
+                out.writeInt(this.charCount);
+                out.writeInt(this.startChar);
+                for (int index : this.domainIndexes)
+                {
+                    out.writeInt(index);
+                }
+                out.writeChars(this.current);
+            }
+            finally
+            {
+                out.close();
+            }
+        }
+    }
+
+    /*
+        Restores an enumeration from a cursor taken with getCursor(), replaying the domain chain up to startChar.
+     */
+    public Combinations (Cursor cursor)
+    {
+        this(cursor.domainString, cursor.charCount);
+        if (cursor.domainIndexes.length != cursor.charCount || cursor.current.length() != cursor.charCount || cursor.startChar < -1 || cursor.startChar >= cursor.charCount)
+        {
+            throw new IllegalArgumentException("Cursor is not consistent with its domain string");
+        }
+
+        for (int i = 0; i <= cursor.startChar; i++)
+        {
+            if (i > 0)
+            {
+                this.combinationCharDomains.get(i - 1).setNextCombinationCharDomain(this.combinationCharDomains.get(i));
+            }
+            // Only the last domain of the chain may be before its first character
+            int index = cursor.domainIndexes[i];
+            if (index < ((i < cursor.startChar) ? 0 : -1) || index >= this.combinationCharDomains.get(i).charMapList.size())
+            {
+                throw new IllegalArgumentException("Cursor index " + index + " is out of the domain of character " + i);
+            }
+            this.combinationCharDomains.get(i).currentIndex = index;
+        }
+        for (int i = 0; i < cursor.charCount; i++)
+        {
+            if (Arrays.binarySearch(this.domainChars, cursor.current.charAt(i)) < 0)
+            {
+                throw new IllegalArgumentException("Cursor character " + i + " is not in its domain string");
+            }
+            setCurrentChar(i, cursor.current.charAt(i));
+        }
+        this.startChar = cursor.startChar;
+    }
+
+    public Cursor getCursor()
+    {
+        Cursor cursor = new Cursor();
+        cursor.domainString = this.domainString;
+        cursor.charCount = this.combinationCharCount;
+        cursor.startChar = this.startChar;
+        cursor.domainIndexes = new int[this.combinationCharCount];
+        for (int i = 0; i < this.combinationCharCount; i++)
+        {
+            cursor.domainIndexes[i] = this.combinationCharDomains.get(i).currentIndex;
+        }
+        cursor.current = this.currentCombination.toString();
+        return cursor;
+    }
+
+    public Combinations (String s, int combinationCharCount, BigInteger startIndex)
+    {
+        this(s, combinationCharCount);
+        seek(startIndex);
     }
 
     private class MapEntry<K, V> implements Map.Entry<K, V>
@@ -156,6 +340,18 @@ public class Combinations implements Enumeration<String> {
             return this.charMapList.get(++this.currentIndex).getKey();
         }
 
+        public int indexOf(char c)
+        {
+            for (int i = 0; i < this.charMapList.size(); i++)
+            {
+                if (this.charMapList.get(i).getKey() == c)
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
         public void setNextCombinationCharDomain(CombinationCharDomain combinationCharDomain)
         {
         	combinationCharDomain.reset();
@@ -181,24 +377,26 @@ public class Combinations implements Enumeration<String> {
 
     @Override
     public String nextElement() throws NoSuchElementException {
-        // TODO Auto-generated method stub
+        fillNextCombination();
+        return this.currentCombination.toString();
+    }
+
+    private void fillNextCombination() throws NoSuchElementException {
         if (this.startChar > -1)
         {
         	int i = this.startChar;
             for (; i < this.combinationCharCount - 1; i++)
             {
-                this.currentCombination.setCharAt(i, this.combinationCharDomains.get(i).nextElement());
+                setCurrentChar(i, this.combinationCharDomains.get(i).nextElement());
                 this.combinationCharDomains.get(i).setNextCombinationCharDomain(this.combinationCharDomains.get(i + 1));
             }
-            this.currentCombination.setCharAt(i, this.combinationCharDomains.get(i).nextElement());
+            setCurrentChar(i, this.combinationCharDomains.get(i).nextElement());
 
             // Finding startChar for next iteration
             this.startChar = this.combinationCharDomains.size() - 1;
             for (; this.startChar > -1 && !this.combinationCharDomains.get(this.startChar).hasMoreElements(); this.startChar--)
             {
             }
-
-            return this.currentCombination.toString();
         }
         else
         {
@@ -206,8 +404,460 @@ public class Combinations implements Enumeration<String> {
         }
     }
 
+    /*
+        Writes up to maxCount of the next combinations back to back into dest from offset, each one
+        combinationCharCount characters wide, and returns how many were written.
+     */
+    public int nextElements(char[] dest, int offset, int maxCount)
+    {
+        if (dest == null)
+        {
+            throw new NullPointerException();
+        }
+        else if (offset < 0 || maxCount < 0 || offset + (long) maxCount * this.combinationCharCount > dest.length)
+        {
+            throw new IndexOutOfBoundsException("Destination array is too small for " + maxCount + " combinations");
+        }
+
+        int count = 0;
+        for (; count < maxCount && this.startChar > -1; count++)
+        {
+            fillNextCombination();
+            this.currentCombination.getChars(0, this.combinationCharCount, dest, offset + count * this.combinationCharCount);
+        }
+        return count;
+    }
+
+    /*
+        Same as nextElements(char[], int, int), bounded by the remaining space of the buffer, whose position is
+        moved past the written combinations.
+     */
+    public int nextElements(CharBuffer dest, int maxCount)
+    {
+        int count = Math.min(maxCount, dest.remaining() / this.combinationCharCount);
+
+        if (dest.hasArray())
+        {
+            count = nextElements(dest.array(), dest.arrayOffset() + dest.position(), count);
+            dest.position(dest.position() + count * this.combinationCharCount);
+            return count;
+        }
+
+        int i = 0;
+        for (; i < count && this.startChar > -1; i++)
+        {
+            fillNextCombination();
+            for (int j = 0; j < this.combinationCharCount; j++)
+            {
+                dest.put(this.currentCombination.charAt(j));
+            }
+        }
+        return i;
+    }
+
+    /*
+        Same as nextElements(CharBuffer, int) with one byte per character, which is both ASCII and UTF-8. Only
+        domain strings made of ASCII characters can be written this way.
+     */
+    public int nextElements(ByteBuffer dest, int maxCount)
+    {
+        if (this.domainChars[this.domainChars.length - 1] > 0x7F)
+        {
+            throw new IllegalStateException("Domain string has non-ASCII characters, which do not fit in one byte of UTF-8");
+        }
+
+        int count = Math.min(maxCount, dest.remaining() / this.combinationCharCount);
+        int i = 0;
+        for (; i < count && this.startChar > -1; i++)
+        {
+            fillNextCombination();
+            for (int j = 0; j < this.combinationCharCount; j++)
+            {
+                dest.put((byte) this.currentCombination.charAt(j));
+            }
+        }
+        return i;
+    }
+
+    /*
+        Returns a 64-bit fingerprint of the next combination instead of the combination itself, so no string is
+        created. The polynomial hash of every prefix is kept per position as the buffer is filled, so only the
+        positions that changed are hashed again. Equal to fingerprint() of the string nextElement() would return.
+     */
+    public long nextFingerprint() throws NoSuchElementException {
+        fillNextCombination();
+        return mixFingerprint(this.prefixFingerprints[this.combinationCharCount]);
+    }
+
+    public static long fingerprint(CharSequence s)
+    {
+        long fingerprint = FINGERPRINT_SEED;
+
+        for (int i = 0; i < s.length(); i++)
+        {
+            fingerprint = fingerprint * FINGERPRINT_MULTIPLIER + s.charAt(i);
+        }
+        return mixFingerprint(fingerprint);
+    }
+
+    // Finalizer of MurmurHash3, so that the low bits of fingerprints of similar strings are well spread
+    private static long mixFingerprint(long fingerprint)
+    {
+        fingerprint ^= fingerprint >>> 33;
+        fingerprint *= 0xFF51AFD7ED558CCDL;
+        fingerprint ^= fingerprint >>> 33;
+        fingerprint *= 0xC4CEB9FE1A85EC53L;
+        fingerprint ^= fingerprint >>> 33;
+        return fingerprint;
+    }
+
+    private void setCurrentChar(int position, char c)
+    {
+        this.currentCombination.setCharAt(position, c);
+        this.prefixFingerprints[position + 1] = this.prefixFingerprints[position] * FINGERPRINT_MULTIPLIER + c;
+    }
+
+    /*
+        Returns the zero-based position of the combination in the enumeration order.
+     */
+    public BigInteger rank(String combination)
+    {
+        if (combination == null)
+        {
+            throw new NullPointerException();
+        }
+        else if (combination.length() != this.combinationCharCount)
+        {
+            throw new IllegalArgumentException("Length of combination must be equal to the combination character count");
+        }
+
+        int[] counts = this.domainCounts.clone();
+        int prevCharIndex = 0;
+        BigInteger rank = BigInteger.ZERO;
+        for (int i = 0; i < this.combinationCharCount; i++)
+        {
+            int charIndex = Arrays.binarySearch(this.domainChars, combination.charAt(i));
+            if (charIndex < prevCharIndex || counts[charIndex] == 0)
+            {
+                throw new IllegalArgumentException("\"" + combination + "\" is not a sorted combination of the domain string");
+            }
+            for (int j = prevCharIndex; j < charIndex; j++)
+            {
+                if (counts[j] > 0)
+                {
+                    counts[j]--;
+                    rank = rank.add(countSelections(counts, j, this.combinationCharCount - i - 1));
+                    counts[j]++;
+                }
+            }
+            counts[charIndex]--;
+            prevCharIndex = charIndex;
+        }
+        return rank;
+    }
+
+    /*
+        Returns the combination at the given zero-based position of the enumeration order.
+     */
+    public String unrank(BigInteger index)
+    {
+        int[] charIndexes = unrankCharIndexes(index);
+        char[] combination = new char[this.combinationCharCount];
+
+        for (int i = 0; i < this.combinationCharCount; i++)
+        {
+            combination[i] = this.domainChars[charIndexes[i]];
+        }
+        return new String(combination);
+    }
+
+    /*
+        Positions the enumeration so that the next call to nextElement() returns the combination at the given
+        index. An index equal to the number of combinations exhausts the enumeration.
+     */
+    public void seek(BigInteger index)
+    {
+        if (index != null && index.equals(count()))
+        {
+            this.startChar = -1;
+            return;
+        }
+
+        int[] charIndexes = unrankCharIndexes(index);
+        int i = 0;
+        for (; i < this.combinationCharCount - 1; i++)
+        {
+            CombinationCharDomain combinationCharDomain = this.combinationCharDomains.get(i);
+            char c = this.domainChars[charIndexes[i]];
+
+            combinationCharDomain.currentIndex = combinationCharDomain.indexOf(c);
+            combinationCharDomain.setNextCombinationCharDomain(this.combinationCharDomains.get(i + 1));
+            setCurrentChar(i, c);
+        }
+        // The last domain is left one before its target so that nextElement() lands on it
+        this.combinationCharDomains.get(i).currentIndex = this.combinationCharDomains.get(i).indexOf(this.domainChars[charIndexes[i]]) - 1;
+        this.startChar = i;
+    }
+
+    private int[] unrankCharIndexes(BigInteger index)
+    {
+        if (index == null)
+        {
+            throw new NullPointerException();
+        }
+        else if (index.signum() < 0 || index.compareTo(count()) >= 0)
+        {
+            throw new IllegalArgumentException("Index is out of the range of combinations");
+        }
+
+        int[] counts = this.domainCounts.clone();
+        int[] charIndexes = new int[this.combinationCharCount];
+        int prevCharIndex = 0;
+        for (int i = 0; i < this.combinationCharCount; i++)
+        {
+            for (int j = prevCharIndex; j < counts.length; j++)
+            {
+                if (counts[j] > 0)
+                {
+                    counts[j]--;
+                    BigInteger selections = countSelections(counts, j, this.combinationCharCount - i - 1);
+                    if (index.compareTo(selections) < 0)
+                    {
+                        charIndexes[i] = prevCharIndex = j;
+                        break;
+                    }
+                    index = index.subtract(selections);
+                    counts[j]++;
+                }
+            }
+        }
+        return charIndexes;
+    }
+
+    /*
+        Returns the number of distinct combinations of the enumeration, computed from the character counts
+        without enumerating.
+     */
+    public BigInteger count()
+    {
+        if (this.count == null)
+        {
+            this.count = countSelections(this.domainCounts, 0, this.combinationCharCount);
+        }
+        return this.count;
+    }
+
+    /*
+        Number of distinct sub-multisets of the given size drawn from the character counts starting at index from:
+        ways[r] = sum over i of ways'[r - i].
+        Falls back to BigInteger arithmetic only when the result does not fit in a long.
+     */
+    private static BigInteger countSelections(int[] counts, int from, int length)
+    {
+        try
+        {
+            return BigInteger.valueOf(countSelectionsExact(counts, from, length));
+        }
+        catch (ArithmeticException e)
+        {
+            return countSelectionsBig(counts, from, length);
+        }
+    }
+
+    private static long countSelectionsExact(int[] counts, int from, int length)
+    {
+        long[] ways = new long[length + 1];
+
+        ways[0] = 1;
+        for (int j = from; j < counts.length; j++)
+        {
+            for (int r = length; r > 0; r--)
+            {
+                long total = ways[r];
+                for (int i = 1; i <= counts[j] && i <= r; i++)
+                {
+                    total = Math.addExact(total, ways[r - i]);
+                }
+                ways[r] = total;
+            }
+        }
+        return ways[length];
+    }
+
+    private static BigInteger countSelectionsBig(int[] counts, int from, int length)
+    {
+        BigInteger[] ways = new BigInteger[length + 1];
+
+        for (int r = 0; r <= length; r++)
+        {
+            ways[r] = (r == 0) ? BigInteger.ONE : BigInteger.ZERO;
+        }
+        for (int j = from; j < counts.length; j++)
+        {
+            for (int r = length; r > 0; r--)
+            {
+                BigInteger total = ways[r];
+                for (int i = 1; i <= counts[j] && i <= r; i++)
+                {
+                    total = total.add(ways[r - i]);
+                }
+                ways[r] = total;
+            }
+        }
+        return ways[length];
+    }
+
+    /*
+        Passes every distinct combination of every length from minLength to maxLength to the visitor in one
+        depth-first pass, emitting each prefix as it is descended into so that shorter combinations come right
+        before their extensions. The lengths are not bound by the combination character count but by the length of
+        the domain string. Independent of the enumeration state, and no object is created per combination.
+     */
+    public void visitAllLengths(int minLength, int maxLength, CombinationVisitor visitor)
+    {
+        if (visitor == null)
+        {
+            throw new NullPointerException();
+        }
+        else if (minLength <= 0 || minLength > maxLength || maxLength > this.domainString.length())
+        {
+            throw new IllegalArgumentException("Length range must be within 1 and the length of domain string");
+        }
+        visit(visitor, new char[maxLength], this.domainCounts.clone(), 0, 0, minLength, maxLength);
+    }
+
+    private void visit(CombinationVisitor visitor, char[] combination, int[] counts, int fromCharIndex, int depth, int minLength, int maxLength)
+    {
+        for (int i = fromCharIndex; i < this.domainChars.length; i++)
+        {
+            if (counts[i] > 0)
+            {
+                combination[depth] = this.domainChars[i];
+                if (depth + 1 >= minLength)
+                {
+                    visitor.visit(combination, depth + 1);
+                }
+                if (depth + 1 < maxLength)
+                {
+                    counts[i]--;
+                    visit(visitor, combination, counts, i, depth + 1, minLength, maxLength);
+                    counts[i]++;
+                }
+            }
+        }
+    }
+
+    /*
+        Returns a spliterator over all combinations, independent of the enumeration state. It splits the index
+        range of the combinations into balanced halves, which first separates the combinations by their leading
+        characters and then by the following ones, and every part knows its exact size.
+     */
+    public Spliterator<String> spliterator()
+    {
+        return new CombinationSpliterator(BigInteger.ZERO, count());
+    }
+
+    public Stream<String> stream(boolean parallel)
+    {
+        return StreamSupport.stream(spliterator(), parallel);
+    }
+
+    private class CombinationSpliterator implements Spliterator<String>
+    {
+        private BigInteger fromIndex, toIndex;
+        private Combinations combinations;
+
+        public CombinationSpliterator(BigInteger fromIndex, BigInteger toIndex)
+        {
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        private Combinations getCombinations()
+        {
+            if (this.combinations == null)
+            {
+                this.combinations = new Combinations(domainString, combinationCharCount, this.fromIndex);
+            }
+            return this.combinations;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action)
+        {
+            if (this.fromIndex.compareTo(this.toIndex) >= 0)
+            {
+                return false;
+            }
+            action.accept(getCombinations().nextElement());
+            this.fromIndex = this.fromIndex.add(BigInteger.ONE);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super String> action)
+        {
+            BigInteger remaining = this.toIndex.subtract(this.fromIndex);
+            if (remaining.signum() <= 0)
+            {
+                return;
+            }
+
+            Combinations combinations = getCombinations();
+            this.fromIndex = this.toIndex;
+            for (; remaining.bitLength() >= Long.SIZE; remaining = remaining.subtract(BigInteger.ONE))
+            {
+                action.accept(combinations.nextElement());
+            }
+            for (long i = remaining.longValue(); i > 0; i--)
+            {
+                action.accept(combinations.nextElement());
+            }
+        }
+
+        @Override
+        public Spliterator<String> trySplit()
+        {
+            BigInteger size = this.toIndex.subtract(this.fromIndex);
+            if (size.compareTo(BigInteger.valueOf(2)) < 0)
+            {
+                return null;
+            }
+
+            BigInteger splitIndex = this.fromIndex.add(size.shiftRight(1));
+            Spliterator<String> prefix = new CombinationSpliterator(this.fromIndex, splitIndex);
+            this.fromIndex = splitIndex;
+            this.combinations = null;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            BigInteger size = this.toIndex.subtract(this.fromIndex);
+            return (size.bitLength() < Long.SIZE) ? size.longValue() : Long.MAX_VALUE;
+        }
+
+        /*
+            The size is only exact, as SIZED requires, while it fits in a long. Halves of such a range fit too,
+            hence SUBSIZED; larger ranges may become SIZED once split.
+         */
+        @Override
+        public int characteristics()
+        {
+            int characteristics = ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+            if (this.toIndex.subtract(this.fromIndex).bitLength() < Long.SIZE)
+            {
+                characteristics |= SIZED | SUBSIZED;
+            }
+            return characteristics;
+        }
+    }
+
     public static void main (String [] args)
     {
+        System.out.println(new Combinations("mississippi", 7).count() + " distinct combinations of 7 characters in \"mississippi\"");
+
         Enumeration<String> e = new Combinations("yellow", 4);
 
         while (e.hasMoreElements())
@@ -0,0 +1,198 @@
+import com.android.lewis.longestword.Combinations;
+import com.android.lewis.permutations.Permutations;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+
+/*
+    A program to write Permutations or Combinations results into a file of fixed-width records, through a memory mapping or buffered NIO output.
+    Copyright (C) 2018 Lewis Tat Fong Choo Man
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see http://www.gnu.org/licenses/gpl.html.
+ */
+
+public class EnumerationFileWriter {
+
+	/*
+		File layout, big-endian: int magic, int version, int record width in bytes, int header size, long record
+		count, long reserved, then the records back to back. Record i starts at header size + i * record width.
+		Records are the characters of each result as one byte each, so they are both ASCII and UTF-8: domain
+		strings with non-ASCII characters are rejected.
+	 */
+	public static final int MAGIC = 0x454E554D;
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 32;
+
+	private static final long MAPPED_WINDOW_BYTES = 64L << 20;
+	private static final int BUFFER_BYTES = 1 << 20;
+
+	/*
+		Fills dest with up to maxCount records of the source and returns how many were written, such as
+		Permutations::nextElements or Combinations::nextElements.
+	 */
+	public interface RecordSource {
+		int nextElements(ByteBuffer dest, int maxCount);
+	}
+
+	private static void writeHeader(FileChannel channel, int recordWidth, long recordCount) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+		header.putInt(MAGIC).putInt(VERSION).putInt(recordWidth).putInt(HEADER_SIZE).putLong(recordCount).putLong(0L);
+		header.flip();
+		while (header.hasRemaining()) {
+			channel.write(header, header.position());
+		}
+	}
+
+	/*
+		Writes up to maxRecords records through memory-mapped windows of the file. Passing the exact number of
+		records, such as count() of the enumeration, avoids mapping past the end of the output.
+	 */
+	public static long writeMapped(RecordSource source, int recordWidth, long maxRecords, Path path) throws IOException {
+		long windowRecords = Math.max(1, MAPPED_WINDOW_BYTES / recordWidth), written = 0;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			while (written < maxRecords) {
+				int records = (int) Math.min(windowRecords, maxRecords - written);
+				MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + written * recordWidth, (long) records * recordWidth);
+				int n = source.nextElements(window, records);
+				written += n;
+				if (n < records) {
+					break;
+				}
+			}
+			// The last window may have been mapped larger than the records written into it
+			channel.truncate(HEADER_SIZE + written * recordWidth);
+			writeHeader(channel, recordWidth, written);
+		}
+		return written;
+	}
+
+	/*
+		Same as writeMapped() with a direct buffer written to the file channel, for when a mapping is not wanted.
+	 */
+	public static long writeBuffered(RecordSource source, int recordWidth, long maxRecords, Path path) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(recordWidth, BUFFER_BYTES - BUFFER_BYTES % recordWidth));
+		long written = 0;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			channel.position(HEADER_SIZE);
+			while (written < maxRecords) {
+				int records = (int) Math.min(buffer.capacity() / recordWidth, maxRecords - written);
+				buffer.clear();
+				int n = source.nextElements(buffer, records);
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				written += n;
+				if (n < records) {
+					break;
+				}
+			}
+			writeHeader(channel, recordWidth, written);
+		}
+		return written;
+	}
+
+	public static long getRecordCount(FileChannel channel) throws IOException {
+		return readHeader(channel).getLong(16);
+	}
+
+	/*
+		Reads record i with a single positioned read.
+	 */
+	public static String readRecord(FileChannel channel, long index) throws IOException {
+		ByteBuffer header = readHeader(channel);
+		int recordWidth = header.getInt(8);
+		if (index < 0 || index >= header.getLong(16)) {
+			throw new IndexOutOfBoundsException("Record " + index + " is out of range");
+		}
+
+		ByteBuffer record = ByteBuffer.allocate(recordWidth);
+		long position = header.getInt(12) + index * recordWidth;
+		while (record.hasRemaining() && channel.read(record, position + record.position()) >= 0) {
+		}
+		return new String(record.array(), 0, record.position(), StandardCharsets.US_ASCII);
+	}
+
+	private static ByteBuffer readHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+		while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+		}
+		if (header.position() < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+			throw new IOException("Not an enumeration record file");
+		}
+		return header;
+	}
+
+	/*
+		Usage: EnumerationFileWriter permutations|combinations <domain string> <character count> <output file> [-buffered]
+	 */
+	public static void main (String [] params) throws Exception {
+		if (params.length < 4) {
+			System.out.println("Usage: EnumerationFileWriter permutations|combinations <domain string> <character count> <output file> [-buffered]");
+			return;
+		}
+
+		if (!params[1].chars().allMatch(c -> c <= 0x7F)) {
+			System.out.println("Domain string must be made of ASCII characters, records are one byte per character");
+			return;
+		}
+
+		int charCount = Integer.parseInt(params[2]);
+		boolean buffered = params.length > 4 && params[4].equals("-buffered");
+		Path path = Paths.get(params[3]);
+		RecordSource source;
+		BigInteger count;
+		Instant start, end;
+		long written;
+
+		switch (params[0]) {
+			case "permutations": {
+				Permutations permutations = new Permutations(params[1], charCount);
+				source = permutations::nextElements;
+				count = permutations.count();
+				break;
+			}
+			case "combinations": {
+				Combinations combinations = new Combinations(params[1], charCount);
+				source = combinations::nextElements;
+				count = combinations.count();
+				break;
+			}
+			default:
+				throw new IllegalArgumentException("Unknown enumeration " + params[0]);
+		}
+
+		long maxRecords = (count.bitLength() < Long.SIZE) ? count.longValue() : Long.MAX_VALUE;
+		start = Instant.now();
+		written = buffered ? writeBuffered(source, charCount, maxRecords, path) : writeMapped(source, charCount, maxRecords, path);
+		end = Instant.now();
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			System.out.printf("Wrote %1$d records, first %2$s, last %3$s\n", written, readRecord(channel, 0), readRecord(channel, getRecordCount(channel) - 1));
+		}
+		System.out.printf("Execution time (millis): %1$d\n", Duration.between(start, end).toMillis());
+	}
+}
@@ -0,0 +1,137 @@
+import com.android.lewis.longestword.Combinations;
+import com.android.lewis.permutations.Permutations;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/*
+    A program to split a Permutations or Combinations enumeration into balanced shards that separate processes can enumerate, and to merge their output.
+    Copyright (C) 2018 Lewis Tat Fong Choo Man
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see http://www.gnu.org/licenses/gpl.html.
+ */
+
+public class EnumerationShards {
+
+	private static final int BATCH_SIZE = 4096;
+
+	private interface ShardSource {
+		BigInteger count();
+
+		void seek(BigInteger index);
+
+		int nextElements(char[] dest, int offset, int maxCount);
+	}
+
+	private static ShardSource getShardSource(String kind, String domain, int charCount) {
+		switch (kind) {
+			case "permutations": {
+				Permutations permutations = new Permutations(domain, charCount);
+				return new ShardSource() {
+					public BigInteger count() { return permutations.count(); }
+					public void seek(BigInteger index) { permutations.seek(index); }
+					public int nextElements(char[] dest, int offset, int maxCount) { return permutations.nextElements(dest, offset, maxCount); }
+				};
+			}
+			case "combinations": {
+				Combinations combinations = new Combinations(domain, charCount);
+				return new ShardSource() {
+					public BigInteger count() { return combinations.count(); }
+					public void seek(BigInteger index) { combinations.seek(index); }
+					public int nextElements(char[] dest, int offset, int maxCount) { return combinations.nextElements(dest, offset, maxCount); }
+				};
+			}
+			default:
+				throw new IllegalArgumentException("Unknown enumeration " + kind);
+		}
+	}
+
+	/*
+		Returns [from, to) of the shard: shard sizes differ by at most one element, and the shards are contiguous
+		and in order, so concatenating them gives the single-process enumeration.
+	 */
+	public static BigInteger[] getShardRange(BigInteger total, int shardIndex, int shardCount) {
+		if (shardCount <= 0 || shardIndex < 0 || shardIndex >= shardCount) {
+			throw new IllegalArgumentException("Shard index must be within 0 and the shard count");
+		}
+		BigInteger count = BigInteger.valueOf(shardCount);
+		return new BigInteger[] {
+			total.multiply(BigInteger.valueOf(shardIndex)).divide(count),
+			total.multiply(BigInteger.valueOf(shardIndex + 1L)).divide(count)
+		};
+	}
+
+	public static long writeShard(String kind, String domain, int charCount, int shardIndex, int shardCount, String outputPath) throws IOException {
+		ShardSource source = getShardSource(kind, domain, charCount);
+		BigInteger[] range = getShardRange(source.count(), shardIndex, shardCount);
+		BigInteger remaining = range[1].subtract(range[0]);
+		char[] buffer = new char[BATCH_SIZE * charCount];
+		long written = 0;
+
+		source.seek(range[0]);
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputPath), StandardCharsets.UTF_8))) {
+			while (remaining.signum() > 0) {
+				int n = source.nextElements(buffer, 0, remaining.min(BigInteger.valueOf(BATCH_SIZE)).intValue());
+				for (int i = 0; i < n; i++) {
+					writer.write(buffer, i * charCount, charCount);
+					writer.write('\n');
+				}
+				remaining = remaining.subtract(BigInteger.valueOf(n));
+				written += n;
+			}
+		}
+		return written;
+	}
+
+	/*
+		Concatenates the shard files, given in shard order, into the output file.
+	 */
+	public static void merge(String outputPath, String... shardPaths) throws IOException {
+		try (FileChannel out = new FileOutputStream(outputPath).getChannel()) {
+			for (String shardPath : shardPaths) {
+				try (FileChannel in = new FileInputStream(shardPath).getChannel()) {
+					for (long position = 0, size = in.size(); position < size; ) {
+						position += in.transferTo(position, size - position, out);
+					}
+				}
+			}
+		}
+	}
+
+	/*
+		Usage: EnumerationShards permutations|combinations <domain string> <character count> <shard index>/<shard count> <output file>
+		       EnumerationShards merge <output file> <shard file>...
+	 */
+	public static void main (String [] params) throws Exception {
+		if (params.length >= 3 && params[0].equals("merge")) {
+			String[] shardPaths = new String[params.length - 2];
+			System.arraycopy(params, 2, shardPaths, 0, shardPaths.length);
+			merge(params[1], shardPaths);
+		} else if (params.length == 5) {
+			String[] shard = params[3].split("/");
+			long written = writeShard(params[0], params[1], Integer.parseInt(params[2]), Integer.parseInt(shard[0]), Integer.parseInt(shard[1]), params[4]);
+			System.out.printf("Shard %1$s wrote %2$d elements\n", params[3], written);
+		} else {
+			System.out.println("Usage: EnumerationShards permutations|combinations <domain string> <character count> <shard index>/<shard count> <output file>");
+			System.out.println("       EnumerationShards merge <output file> <shard file>...");
+		}
+	}
+}
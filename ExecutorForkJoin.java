@@ -1,6 +1,9 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -8,6 +11,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BinaryOperator;
 import java.util.stream.IntStream;
 import java.time.Instant;
 import java.time.Duration;
@@ -35,16 +39,60 @@ public class ExecutorForkJoin extends RecursiveTask<Set<Long>> {
 
 	private static final int THREADS = 4;
 	private static final int MAX_ELEMENTS = 15;
+	private static final long BLOCKING_MILLIS = 200;
 
 	private static ForkJoinPool forkJoinPool = new ForkJoinPool(THREADS);
 
 	private List<Long> elementList = new ArrayList<>();
+	private SplitPolicy splitPolicy;
+	// Permits for the elements allowed to block through ElementBlocker at once, or null without managed blocking
+	private Semaphore compensationPermits;
+
+	private static void process(Long element) throws InterruptedException {
+		Thread.sleep(BLOCKING_MILLIS);
+		System.out.printf("I am %1$d in thread %2$s, thread id: %3$d!\n", element, Thread.currentThread().getName(), Thread.currentThread().getId());
+	}
+
+	/*
+		Runs the blocking work of one element through ForkJoinPool.managedBlock(), which lets the pool start a spare
+		thread while this one is blocked, so the pool keeps its parallelism of running threads.
+	 */
+	private static class ElementBlocker implements ForkJoinPool.ManagedBlocker {
+		private Long element;
+		private boolean done = false;
+
+		public ElementBlocker(Long element) {
+			this.element = element;
+		}
+
+		@Override
+		public boolean block() throws InterruptedException {
+			if (!done) {
+				process(element);
+				done = true;
+			}
+			return true;
+		}
+
+		@Override
+		public boolean isReleasable() {
+			return done;
+		}
+	}
 
 	private Long execute(List<Long> elements) {
 		elements.forEach(e -> {
 			try {
-				Thread.sleep(200);
-				System.out.printf("I am %1$d in thread %2$s, thread id: %3$d!\n", e, Thread.currentThread().getName(), Thread.currentThread().getId());
+				// Without a permit the element blocks its worker, so at most maxCompensation spare threads are started
+				if (compensationPermits != null && compensationPermits.tryAcquire()) {
+					try {
+						ForkJoinPool.managedBlock(new ElementBlocker(e));
+					} finally {
+						compensationPermits.release();
+					}
+				} else {
+					process(e);
+				}
 			} catch (InterruptedException ex) {
 				ex.printStackTrace();
 			}
@@ -52,28 +100,225 @@ public class ExecutorForkJoin extends RecursiveTask<Set<Long>> {
 		return Thread.currentThread().getId();
 	}
 
+	/*
+		Decides whether a task of a given size splits. A fixed policy splits down to a threshold. An adaptive policy
+		splits while the current worker has at most surplusLimit more queued tasks than other workers could steal,
+		which keeps every worker busy without flooding the queues, and never below a minimum grain measured from
+		the leaves already run: the number of elements taking about targetLeafNanos. Leaves report their time
+		through record().
+	 */
+	public static class SplitPolicy {
+		public static final int DEFAULT_SURPLUS_LIMIT = 3;
+		public static final long DEFAULT_TARGET_LEAF_NANOS = 100_000L;
+
+		private int threshold;
+		private int surplusLimit;
+		private long targetLeafNanos;
+		// Written by any leaf without synchronization: a lost update only delays the estimate
+		private volatile double elementNanos = -1;
+
+		private SplitPolicy(int threshold, int surplusLimit, long targetLeafNanos) {
+			this.threshold = threshold;
+			this.surplusLimit = surplusLimit;
+			this.targetLeafNanos = targetLeafNanos;
+		}
+
+		public static SplitPolicy fixed(int threshold) {
+			if (threshold <= 0) {
+				throw new IllegalArgumentException("Threshold must be positive");
+			}
+			return new SplitPolicy(threshold, 0, 0);
+		}
+
+		public static SplitPolicy adaptive(int surplusLimit, long targetLeafNanos) {
+			if (surplusLimit < 0 || targetLeafNanos <= 0) {
+				throw new IllegalArgumentException("Surplus limit cannot be negative and the leaf time must be positive");
+			}
+			return new SplitPolicy(0, surplusLimit, targetLeafNanos);
+		}
+
+		public static SplitPolicy adaptive() {
+			return adaptive(DEFAULT_SURPLUS_LIMIT, DEFAULT_TARGET_LEAF_NANOS);
+		}
+
+		public boolean isAdaptive() {
+			return threshold == 0;
+		}
+
+		public int getMinGrain() {
+			double nanos = elementNanos;
+			return (nanos <= 0) ? 1 : (int) Math.max(1, Math.min(Integer.MAX_VALUE, targetLeafNanos / nanos));
+		}
+
+		public boolean shouldSplit(int size) {
+			if (size <= 1) {
+				return false;
+			} else if (!isAdaptive()) {
+				return size > threshold;
+			}
+			return size > getMinGrain() && ForkJoinTask.getSurplusQueuedTaskCount() <= surplusLimit;
+		}
+
+		public void record(int size, long nanos) {
+			if (isAdaptive() && size > 0) {
+				double sample = (double) nanos / size, nanosPerElement = elementNanos;
+				elementNanos = (nanosPerElement < 0) ? sample : (nanosPerElement + sample) / 2;
+			}
+		}
+	}
+
+	/*
+		Work done on the elements [from, to) of the array by a leaf RangeTask.
+	 */
+	public interface RangeFunction<R> {
+		R apply(long[] elements, int from, int to);
+	}
+
+	/*
+		Task over the elements [from, to) of an array shared by all the tasks of the computation, so splitting it
+		is creating two tasks over the halves of the range instead of copying the elements. Ranges the split policy
+		does not split, either by a fixed threshold or adaptively, are passed to the leaf function, and the results
+		of two halves are merged by the combiner, left half first.
+	 */
+	public static class RangeTask<R> extends RecursiveTask<R> {
+		private long[] elements;
+		private int from, to;
+		private SplitPolicy splitPolicy;
+		private RangeFunction<R> leaf;
+		private BinaryOperator<R> combiner;
+
+		public RangeTask(long[] elements, int threshold, RangeFunction<R> leaf, BinaryOperator<R> combiner) {
+			this(elements, 0, elements.length, SplitPolicy.fixed(Math.max(1, threshold)), leaf, combiner);
+		}
+
+		public RangeTask(long[] elements, SplitPolicy splitPolicy, RangeFunction<R> leaf, BinaryOperator<R> combiner) {
+			this(elements, 0, elements.length, splitPolicy, leaf, combiner);
+		}
+
+		public RangeTask(long[] elements, int from, int to, SplitPolicy splitPolicy, RangeFunction<R> leaf, BinaryOperator<R> combiner) {
+			if (splitPolicy == null || leaf == null || combiner == null) {
+				throw new NullPointerException();
+			}
+			if (from < 0 || from > to || to > elements.length) {
+				throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") is out of the array bounds");
+			}
+			this.elements = elements;
+			this.from = from;
+			this.to = to;
+			this.splitPolicy = splitPolicy;
+			this.leaf = leaf;
+			this.combiner = combiner;
+		}
+
+		@Override
+		protected R compute() {
+			if (!splitPolicy.shouldSplit(to - from)) {
+				long start = System.nanoTime();
+				R result = leaf.apply(elements, from, to);
+				splitPolicy.record(to - from, System.nanoTime() - start);
+				return result;
+			}
+
+			int splitIndex = (from + to) >>> 1;
+			RangeTask<R> left = new RangeTask<>(elements, from, splitIndex, splitPolicy, leaf, combiner);
+			RangeTask<R> right = new RangeTask<>(elements, splitIndex, to, splitPolicy, leaf, combiner);
+			left.fork();
+			R rightResult = right.compute();
+			return combiner.apply(left.join(), rightResult);
+		}
+	}
+
+	private static Set<Long> executeRange(long[] elements, int from, int to) {
+		Set<Long> resultSet = new HashSet<>();
+		for (int i = from; i < to; i++) {
+			try {
+				Thread.sleep(BLOCKING_MILLIS);
+				System.out.printf("I am %1$d in thread %2$s, thread id: %3$d!\n", elements[i], Thread.currentThread().getName(), Thread.currentThread().getId());
+			} catch (InterruptedException ex) {
+				ex.printStackTrace();
+			}
+		}
+		resultSet.add(Thread.currentThread().getId());
+		return resultSet;
+	}
+
 	@Override
 	protected Set<Long> compute() {
 		Set<Long> resultSet = new HashSet<>();
-		if (this.elementList.size() <= (MAX_ELEMENTS + THREADS - 1) / THREADS) {
+		if (!splitPolicy.shouldSplit(this.elementList.size())) {
+			long start = System.nanoTime();
 			resultSet.add(execute(elementList));
+			splitPolicy.record(elementList.size(), System.nanoTime() - start);
 		} else {
 			int elementListLen = elementList.size(), splitIndex = (elementListLen + 1) / 2;
 			Collection<ForkJoinTask<Set<Long>>> forkJoinTasks;
-			forkJoinTasks = invokeAll(Arrays.asList(new ExecutorForkJoin(elementList.subList(0, splitIndex)), new ExecutorForkJoin(elementList.subList(splitIndex, elementListLen))));
+			forkJoinTasks = invokeAll(Arrays.asList(new ExecutorForkJoin(elementList.subList(0, splitIndex), splitPolicy, compensationPermits), new ExecutorForkJoin(elementList.subList(splitIndex, elementListLen), splitPolicy, compensationPermits)));
 			forkJoinTasks.forEach(forkJoinTask -> resultSet.addAll(forkJoinTask.join()));
 		}
 		return resultSet;
 	}
 
+	/*
+		Alternative to invoking the task in the pool for blocking elements: one thread per element, with at most
+		maxConcurrency elements in flight, so the blocking calls are not capped by the pool parallelism. Prints
+		which executor runs them, as runtimes before Java 21 fall back to platform threads.
+	 */
+	public Set<Long> computeVirtual(int maxConcurrency) throws InterruptedException, ExecutionException {
+		System.out.printf("Running %1$d elements on a %2$s, at most %3$d in flight\n", elementList.size(), ExecutorIterators.getVirtualThreadExecutorName(), maxConcurrency);
+		ExecutorService executor = ExecutorIterators.newVirtualThreadExecutor();
+		try {
+			return new HashSet<>(ExecutorIterators.executePerElement(executor, elementList, element -> execute(Arrays.asList(element)), maxConcurrency));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 	public ExecutorForkJoin(List<Long> elementList) {
+		this(elementList, SplitPolicy.fixed((MAX_ELEMENTS + THREADS - 1) / THREADS));
+	}
+
+	public ExecutorForkJoin(List<Long> elementList, SplitPolicy splitPolicy) {
+		this(elementList, splitPolicy, null);
+	}
+
+	/*
+		Managed blocking mode: the blocking work of up to maxCompensation elements at a time runs through an
+		ElementBlocker, so the pool can start a spare thread for each of them, and the others block their worker
+		as usual. This bounds the spare threads of the computation in any ForkJoinPool; the pool may also start
+		fewer, as it does not compensate a blocked worker while enough others are running.
+	 */
+	public ExecutorForkJoin(List<Long> elementList, SplitPolicy splitPolicy, int maxCompensation) {
+		this(elementList, splitPolicy, newCompensationPermits(maxCompensation));
+	}
+
+	private static Semaphore newCompensationPermits(int maxCompensation) {
+		if (maxCompensation < 0) {
+			throw new IllegalArgumentException("Compensation limit cannot be negative");
+		}
+		return new Semaphore(maxCompensation);
+	}
+
+	private ExecutorForkJoin(List<Long> elementList, SplitPolicy splitPolicy, Semaphore compensationPermits) {
+		if (splitPolicy == null) {
+			throw new NullPointerException();
+		}
 		this.elementList.addAll(elementList);
+		this.splitPolicy = splitPolicy;
+		this.compensationPermits = compensationPermits;
 	}
 
 	public ForkJoinPool getForkJoinPool() {
 		return forkJoinPool;
 	}
 
+	/*
+		Usage: ExecutorForkJoin [-virtual <max concurrency> | -range | -adaptive | -blocking <max compensation>]
+		-virtual runs the elements on a virtual thread each instead of the fork join pool.
+		-range runs the elements as a long array split by index ranges instead of list copies.
+		-adaptive splits by the load of the pool and the measured element time instead of a fixed threshold.
+		-blocking splits down to single elements and runs them as managed blockers, with the pool starting at most
+		max compensation spare threads, after timing the same split without managed blocking for comparison.
+	 */
 	public static void main (String [] params) throws Exception {
 		Instant start, end;
 		Random random = new Random();
@@ -88,7 +333,26 @@ public class ExecutorForkJoin extends RecursiveTask<Set<Long>> {
 
 		try {
 			start = Instant.now();
-			resultSet = executorForkJoin.getForkJoinPool().invoke(executorForkJoin);
+			if (params.length == 2 && params[0].equals("-virtual")) {
+				resultSet = executorForkJoin.computeVirtual(Integer.parseInt(params[1]));
+			} else if (params.length == 1 && params[0].equals("-range")) {
+				long[] elements = elementList.stream().mapToLong(Long::longValue).toArray();
+				resultSet = executorForkJoin.getForkJoinPool().invoke(new RangeTask<Set<Long>>(elements, (MAX_ELEMENTS + THREADS - 1) / THREADS, ExecutorForkJoin::executeRange, (left, right) -> {
+					left.addAll(right);
+					return left;
+				}));
+			} else if (params.length == 1 && params[0].equals("-adaptive")) {
+				resultSet = executorForkJoin.getForkJoinPool().invoke(new ExecutorForkJoin(elementList, SplitPolicy.adaptive()));
+			} else if (params.length == 2 && params[0].equals("-blocking")) {
+				executorForkJoin.getForkJoinPool().invoke(new ExecutorForkJoin(elementList, SplitPolicy.fixed(1)));
+				end = Instant.now();
+				System.out.printf("Execution time without managed blocking (millis): %1$d\n", Duration.between(start, end).toMillis());
+
+				start = Instant.now();
+				resultSet = executorForkJoin.getForkJoinPool().invoke(new ExecutorForkJoin(elementList, SplitPolicy.fixed(1), Integer.parseInt(params[1])));
+			} else {
+				resultSet = executorForkJoin.getForkJoinPool().invoke(executorForkJoin);
+			}
 			end = Instant.now();
 		} finally {
 			executorForkJoin.getForkJoinPool().shutdown();
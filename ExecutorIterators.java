@@ -3,16 +3,28 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.IntStream;
 import java.time.Instant;
 import java.time.Duration;
 import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
 
 /*
     A program to process an iterator using multiple threads in a thread safe manner.
@@ -36,6 +48,7 @@ public class ExecutorIterators {
 
 	private static final int THREADS = 4;
 	private static final int MAX_ELEMENTS = 15;
+	private static final long BLOCKING_MILLIS = 200;
 
 	private ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
 
@@ -46,7 +59,7 @@ public class ExecutorIterators {
 	public Long execute(Iterator<Long> elements) {
 		elements.forEachRemaining(e -> {
 			try {
-				Thread.sleep(200);
+				Thread.sleep(BLOCKING_MILLIS);
 				System.out.printf("I am %1$d in thread %2$s, thread id: %3$d!\n", e, Thread.currentThread().getName(), Thread.currentThread().getId());
 			} catch (InterruptedException ex) {
 				ex.printStackTrace();
@@ -58,6 +71,8 @@ public class ExecutorIterators {
 	private class IteratorValue<T> {
 		private T value;
 		private Boolean hasNext;
+		private Object[] chunk;
+		private int chunkPosition = 0, chunkLength = 0;
 
 		public T getValue() {
 			return value;
@@ -76,61 +91,597 @@ public class ExecutorIterators {
 		}
 	}
 
+	private static void checkChunkSize(int chunkSize) {
+		if (chunkSize < 0) {
+			throw new IllegalArgumentException("Chunk size cannot be negative");
+		}
+	}
+
+	/*
+		Hands the elements of the source iterator to the calling threads under a lock. Each thread claims a chunk of
+		consecutive elements under one lock acquisition and then consumes it without locking, in source order; there
+		is no ordering between the chunks of different threads. Elements claimed by a thread that stops iterating
+		are not handed to the others. A chunk size of ADAPTIVE_CHUNK_SIZE starts every thread at one element per
+		claim and doubles its claims up to MAX_ADAPTIVE_CHUNK_SIZE, so short sources still spread across threads.
+		Every call looks up the chunk of the calling thread in a thread local; getCallables() avoids that by giving
+		each callable its own ChunkIterator.
+	 */
 	public class SynchronizedIterator<T> implements Iterator<T> {
+		public static final int ADAPTIVE_CHUNK_SIZE = 0;
+		public static final int MAX_ADAPTIVE_CHUNK_SIZE = 256;
+
 		private Iterator<T> sourceIterator;
+		private int chunkSize;
 		private InheritableThreadLocal<IteratorValue<T>> iteratorValue = new InheritableThreadLocal<IteratorValue<T>>() {
 			protected IteratorValue<T> initialValue() {
 				IteratorValue<T> iteratorValue = new IteratorValue<>();
 				iteratorValue.setHasNext(null);
 				iteratorValue.setValue(null);
+				iteratorValue.chunk = new Object[(chunkSize == ADAPTIVE_CHUNK_SIZE) ? 0 : chunkSize];
 				return iteratorValue;
 			}
 		};
 
 		public SynchronizedIterator(Iterator<T> sourceIterator) {
+			this(sourceIterator, 1);
+		}
+
+		public SynchronizedIterator(Iterator<T> sourceIterator, int chunkSize) {
+			checkChunkSize(chunkSize);
 			this.sourceIterator = sourceIterator;
+			this.chunkSize = chunkSize;
+		}
+
+		private void claimChunk(IteratorValue<T> value) {
+			int length = 0;
+			// The previous chunk has been fully consumed at this point, so it can be replaced by a larger one
+			if (chunkSize == ADAPTIVE_CHUNK_SIZE && value.chunkLength == value.chunk.length && value.chunkLength < MAX_ADAPTIVE_CHUNK_SIZE) {
+				value.chunk = new Object[Math.max(1, value.chunkLength * 2)];
+			}
+			synchronized(this) {
+				for (; length < value.chunk.length && sourceIterator.hasNext(); length++) {
+					value.chunk[length] = sourceIterator.next();
+				}
+			}
+			value.chunkPosition = 0;
+			value.chunkLength = length;
 		}
 
 		@Override
+		@SuppressWarnings("unchecked")
 		public boolean hasNext() {
-			if (iteratorValue.get().getHasNext() == null) {
-				synchronized(this) {
-					if (sourceIterator.hasNext()) {
-						iteratorValue.get().setValue(sourceIterator.next());
-						iteratorValue.get().setHasNext(true);
-					} else {
-						iteratorValue.get().setValue(null);
-						iteratorValue.get().setHasNext(false);
-					}
+			IteratorValue<T> value = iteratorValue.get();
+			if (value.getHasNext() == null) {
+				if (value.chunkPosition == value.chunkLength) {
+					claimChunk(value);
+				}
+				if (value.chunkPosition < value.chunkLength) {
+					value.setValue((T) value.chunk[value.chunkPosition]);
+					value.chunk[value.chunkPosition++] = null;
+					value.setHasNext(true);
+				} else {
+					value.setValue(null);
+					value.setHasNext(false);
+				}
+			}
+
+			return value.getHasNext();
+		}
+
+		@Override
+		public T next() {
+			if (hasNext()) {
+				IteratorValue<T> value = iteratorValue.get();
+				value.setHasNext(null);
+				return value.getValue();
+			} else {
+				throw new NoSuchElementException("No element left");
+			}
+		}
+	}
+
+	private class ChunkSource<T> {
+		private Iterator<T> sourceIterator;
+		private int chunkSize;
+	}
+
+	/*
+		Iterator claiming chunks of a shared source under a lock on the source, with the same chunk size rules as
+		SynchronizedIterator, but keeping its chunk in plain fields instead of a thread local. Like
+		RandomAccessIterator, an instance holds the state of one thread and must not be shared.
+	 */
+	public class ChunkIterator<T> implements Iterator<T> {
+		private ChunkSource<T> source;
+		private Object[] chunk;
+		private int chunkPosition = 0, chunkLength = 0;
+
+		private ChunkIterator(ChunkSource<T> source) {
+			this.source = source;
+			this.chunk = new Object[(source.chunkSize == SynchronizedIterator.ADAPTIVE_CHUNK_SIZE) ? 1 : source.chunkSize];
+		}
+
+		private void claimChunk() {
+			int length = 0;
+			// The previous chunk has been fully consumed at this point, so it can be replaced by a larger one
+			if (source.chunkSize == SynchronizedIterator.ADAPTIVE_CHUNK_SIZE && chunkLength == chunk.length && chunkLength < SynchronizedIterator.MAX_ADAPTIVE_CHUNK_SIZE) {
+				chunk = new Object[chunkLength * 2];
+			}
+			synchronized(source) {
+				for (; length < chunk.length && source.sourceIterator.hasNext(); length++) {
+					chunk[length] = source.sourceIterator.next();
 				}
 			}
+			chunkPosition = 0;
+			chunkLength = length;
+		}
 
-			return iteratorValue.get().getHasNext();
+		@Override
+		public boolean hasNext() {
+			if (chunkPosition == chunkLength) {
+				claimChunk();
+			}
+			return chunkPosition < chunkLength;
 		}
 
 		@Override
+		@SuppressWarnings("unchecked")
 		public T next() {
 			if (hasNext()) {
-				iteratorValue.get().setHasNext(null);
-				return iteratorValue.get().getValue();
+				T value = (T) chunk[chunkPosition];
+				chunk[chunkPosition++] = null;
+				return value;
 			} else {
 				throw new NoSuchElementException("No element left");
 			}
 		}
 	}
 
+	/*
+		Range of indexes claimed from a cursor shared by all the iterators over the same source, with one getAndAdd
+		per claim and no lock. The claim size follows the same chunk size rules as SynchronizedIterator. The cursor
+		is a long so that claims past the end of a source close to Integer.MAX_VALUE elements cannot wrap around.
+	 */
+	private class IndexRange {
+		private AtomicLong cursor;
+		private int limit, chunkSize, claimSize;
+		private int position = 0, end = 0;
+
+		public IndexRange(AtomicLong cursor, int limit, int chunkSize) {
+			checkChunkSize(chunkSize);
+			this.cursor = cursor;
+			this.limit = limit;
+			this.chunkSize = chunkSize;
+			this.claimSize = (chunkSize == SynchronizedIterator.ADAPTIVE_CHUNK_SIZE) ? 1 : chunkSize;
+		}
+
+		public boolean hasNext() {
+			// Checking the cursor first stops exhausted iterators from pushing it further past the limit
+			if (position == end && cursor.get() < limit) {
+				long from = cursor.getAndAdd(claimSize);
+				position = (int) Math.min(from, limit);
+				end = (int) Math.min(from + claimSize, limit);
+				if (chunkSize == SynchronizedIterator.ADAPTIVE_CHUNK_SIZE && claimSize < SynchronizedIterator.MAX_ADAPTIVE_CHUNK_SIZE) {
+					claimSize *= 2;
+				}
+			}
+			return position < end;
+		}
+
+		public int next() {
+			if (hasNext()) {
+				return position++;
+			} else {
+				throw new NoSuchElementException("No element left");
+			}
+		}
+	}
+
+	/*
+		Iterates a RandomAccess list by index ranges claimed from a shared cursor. Unlike SynchronizedIterator, an
+		instance holds the state of one thread and must not be shared, so every callable gets its own.
+	 */
+	public class RandomAccessIterator<T> implements Iterator<T> {
+		private List<T> sourceList;
+		private IndexRange range;
+
+		public RandomAccessIterator(List<T> sourceList, AtomicLong cursor, int chunkSize) {
+			this.sourceList = sourceList;
+			this.range = new IndexRange(cursor, sourceList.size(), chunkSize);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return range.hasNext();
+		}
+
+		@Override
+		public T next() {
+			return sourceList.get(range.next());
+		}
+	}
+
+	/*
+		Same as RandomAccessIterator over a long array, without boxing the elements.
+	 */
+	public class LongArrayIterator implements PrimitiveIterator.OfLong {
+		private long[] sourceArray;
+		private IndexRange range;
+
+		public LongArrayIterator(long[] sourceArray, AtomicLong cursor, int chunkSize) {
+			this.sourceArray = sourceArray;
+			this.range = new IndexRange(cursor, sourceArray.length, chunkSize);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return range.hasNext();
+		}
+
+		@Override
+		public long nextLong() {
+			return sourceArray[range.next()];
+		}
+	}
+
 	public <T, R> List<Callable<R>> getCallables(int numThreads, List<T> sourceList, Function<Iterator<T>, R> func) {
+		return getCallables(numThreads, sourceList, func, 1);
+	}
+
+	public <T, R> List<Callable<R>> getCallables(int numThreads, List<T> sourceList, Function<Iterator<T>, R> func, int chunkSize) {
+		checkChunkSize(chunkSize);
 		List<Callable<R>> callables = new ArrayList<>();
-		Iterator<T> sourceIterator = new SynchronizedIterator<>(sourceList.iterator());
 
+		// Lists that can be indexed are shared through a lock-free cursor instead of a synchronized iterator
+		if (sourceList instanceof RandomAccess) {
+			AtomicLong cursor = new AtomicLong();
+			IntStream.range(0, numThreads).forEach(i -> {
+				callables.add(() -> {
+					return func.apply(new RandomAccessIterator<>(sourceList, cursor, chunkSize));
+				});
+			});
+			return callables;
+		}
+
+		ChunkSource<T> source = new ChunkSource<>();
+		source.sourceIterator = sourceList.iterator();
+		source.chunkSize = chunkSize;
 		IntStream.range(0, numThreads).forEach(i -> {
 			callables.add(() -> {
-				return func.apply(sourceIterator);
+				return func.apply(new ChunkIterator<>(source));
 			});
 		});
 		return callables;
 	}
 
+	public <R> List<Callable<R>> getCallables(int numThreads, long[] sourceArray, Function<PrimitiveIterator.OfLong, R> func, int chunkSize) {
+		checkChunkSize(chunkSize);
+		List<Callable<R>> callables = new ArrayList<>();
+		AtomicLong cursor = new AtomicLong();
+
+		IntStream.range(0, numThreads).forEach(i -> {
+			callables.add(() -> {
+				return func.apply(new LongArrayIterator(sourceArray, cursor, chunkSize));
+			});
+		});
+		return callables;
+	}
+
+	/*
+		Cooperative stop signal shared by the workers of one run, raised by cancel() or by passing the deadline.
+		Workers check it before every claim, so they stop within the chunk they are processing.
+	 */
+	public static class Cancellation {
+		private volatile boolean cancelled = false;
+		private long deadlineNanos;
+		private boolean hasDeadline;
+
+		public Cancellation() {
+			this.hasDeadline = false;
+		}
+
+		public Cancellation(long timeout, TimeUnit unit) {
+			this.hasDeadline = true;
+			this.deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+		}
+
+		public void cancel() {
+			cancelled = true;
+		}
+
+		public boolean hasExpired() {
+			return hasDeadline && System.nanoTime() - deadlineNanos >= 0;
+		}
+
+		public boolean isCancelled() {
+			return cancelled || hasExpired();
+		}
+	}
+
+	private class GuidedSource<T> {
+		private Iterator<T> sourceIterator;
+		private int remaining, numWorkers;
+		private Cancellation cancellation;
+	}
+
+	/*
+		Iterator claiming guided chunks of a shared source: a claim takes at most the remaining elements divided by
+		GUIDED_FACTOR times the number of workers, so claims are large early and shrink towards the end. A claim is
+		also capped to about TARGET_CHUNK_NANOS of work, from the time per element this iterator measured on its
+		previous chunk, so costly elements are claimed a few at a time and every worker notices a cancellation
+		quickly. The first claim of an iterator is a single element, to measure it. Like RandomAccessIterator, an
+		instance holds the state of one thread and must not be shared.
+	 */
+	public class GuidedIterator<T> implements Iterator<T> {
+		public static final int GUIDED_FACTOR = 2;
+		public static final long TARGET_CHUNK_NANOS = 1_000_000L;
+
+		private GuidedSource<T> source;
+		private Object[] chunk = new Object[1];
+		private int chunkPosition = 0, chunkLength = 0;
+		private long claimNanos;
+		private double elementNanos = -1;
+
+		private GuidedIterator(GuidedSource<T> source) {
+			this.source = source;
+		}
+
+		private void claimChunk() {
+			long now = System.nanoTime();
+			if (chunkLength > 0) {
+				double sample = (double) (now - claimNanos) / chunkLength;
+				elementNanos = (elementNanos < 0) ? sample : (elementNanos + sample) / 2;
+			}
+			long latencyLimit = (elementNanos < 0) ? 1 : (long) (TARGET_CHUNK_NANOS / Math.max(1, elementNanos));
+
+			int length = 0;
+			if (!source.cancellation.isCancelled()) {
+				synchronized(source) {
+					int guided = (source.remaining + GUIDED_FACTOR * source.numWorkers - 1) / (GUIDED_FACTOR * source.numWorkers);
+					int size = (int) Math.max(1, Math.min(guided, latencyLimit));
+					if (chunk.length < size) {
+						chunk = new Object[size];
+					}
+					for (; length < size && source.sourceIterator.hasNext(); length++) {
+						chunk[length] = source.sourceIterator.next();
+					}
+					source.remaining -= length;
+				}
+			}
+			chunkPosition = 0;
+			chunkLength = length;
+			claimNanos = System.nanoTime();
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (chunkPosition == chunkLength) {
+				claimChunk();
+			}
+			return chunkPosition < chunkLength;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (hasNext()) {
+				T value = (T) chunk[chunkPosition];
+				chunk[chunkPosition++] = null;
+				return value;
+			} else {
+				throw new NoSuchElementException("No element left");
+			}
+		}
+	}
+
+	/*
+		Same as getCallables() with guided chunks, for elements whose cost varies, stopping every worker once the
+		cancellation is raised.
+	 */
+	public <T, R> List<Callable<R>> getGuidedCallables(int numThreads, List<T> sourceList, Function<Iterator<T>, R> func, Cancellation cancellation) {
+		if (cancellation == null) {
+			throw new NullPointerException();
+		}
+
+		List<Callable<R>> callables = new ArrayList<>();
+		GuidedSource<T> source = new GuidedSource<>();
+		source.sourceIterator = sourceList.iterator();
+		source.remaining = sourceList.size();
+		source.numWorkers = numThreads;
+		source.cancellation = cancellation;
+
+		IntStream.range(0, numThreads).forEach(i -> {
+			callables.add(() -> {
+				return func.apply(new GuidedIterator<>(source));
+			});
+		});
+		return callables;
+	}
+
+	/*
+		Returns any element matching the predicate, not necessarily the first one, and cancels the other workers as
+		soon as one is found. Returns an empty result if no element matches, or if the cancellation was raised or
+		its deadline passed before one was found; hasExpired() tells the deadline apart. An exception thrown by the
+		predicate also cancels the other workers, and is rethrown wrapped in an ExecutionException.
+	 */
+	public <T> Optional<T> findAny(int numThreads, List<T> sourceList, Predicate<? super T> predicate, Cancellation cancellation) throws InterruptedException, ExecutionException {
+		AtomicReference<T> found = new AtomicReference<>();
+
+		for (Future<Boolean> future : executorService.invokeAll(getGuidedCallables(numThreads, sourceList, iterator -> {
+			try {
+				while (iterator.hasNext()) {
+					T element = iterator.next();
+					if (predicate.test(element)) {
+						found.compareAndSet(null, element);
+						cancellation.cancel();
+						return true;
+					}
+				}
+				return false;
+			} catch (RuntimeException | Error ex) {
+				// A failing predicate stops the other workers too, rather than letting them drain the source
+				cancellation.cancel();
+				throw ex;
+			}
+		}, cancellation))) {
+			future.get();
+		}
+		return Optional.ofNullable(found.get());
+	}
+
+	public <T> Optional<T> findAny(int numThreads, List<T> sourceList, Predicate<? super T> predicate) throws InterruptedException, ExecutionException {
+		return findAny(numThreads, sourceList, predicate, new Cancellation());
+	}
+
+	/*
+		Folds the elements into one accumulator per worker, created by supplier, and combines the accumulators once
+		all the workers are done. Workers never share an accumulator, so the accumulator does not have to be thread
+		safe. Which elements a worker gets is not fixed, so the combiner should give the same result in any grouping
+		and order of the accumulators, as with a parallel stream.
+	 */
+	public <T, A> A collect(int numThreads, List<T> sourceList, Supplier<A> supplier, BiConsumer<A, ? super T> accumulator, BinaryOperator<A> combiner, int chunkSize) throws InterruptedException, ExecutionException {
+		if (supplier == null || accumulator == null || combiner == null) {
+			throw new NullPointerException();
+		}
+
+		A result = null;
+		List<Callable<A>> callables = getCallables(numThreads, sourceList, iterator -> {
+			A container = supplier.get();
+			iterator.forEachRemaining(element -> accumulator.accept(container, element));
+			return container;
+		}, chunkSize);
+
+		for (Future<A> future : executorService.invokeAll(callables)) {
+			result = (result == null) ? future.get() : combiner.apply(result, future.get());
+		}
+		return (result == null) ? supplier.get() : result;
+	}
+
+	public <T, A> A collect(int numThreads, List<T> sourceList, Supplier<A> supplier, BiConsumer<A, ? super T> accumulator, BinaryOperator<A> combiner) throws InterruptedException, ExecutionException {
+		return collect(numThreads, sourceList, supplier, accumulator, combiner, SynchronizedIterator.ADAPTIVE_CHUNK_SIZE);
+	}
+
+	/*
+		Same as collect() with the functions of a Collector, such as Collectors.groupingBy(), then its finisher.
+	 */
+	public <T, A, R> R collect(int numThreads, List<T> sourceList, Collector<? super T, A, R> collector) throws InterruptedException, ExecutionException {
+		return collector.finisher().apply(collect(numThreads, sourceList, collector.supplier(), collector.accumulator(), collector.combiner()));
+	}
+
+	/*
+		Whether this runtime has virtual threads, that is Java 21 or later. Without them newVirtualThreadExecutor()
+		falls back to platform threads, which callers should report.
+	 */
+	public static boolean hasVirtualThreads() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException ex) {
+			return false;
+		}
+	}
+
+	/*
+		Names the executor newVirtualThreadExecutor() returns on this runtime, for reports.
+	 */
+	public static String getVirtualThreadExecutorName() {
+		return hasVirtualThreads() ? "virtual thread per task" : "cached pool of platform threads (no virtual threads before Java 21)";
+	}
+
+	/*
+		Executor starting a virtual thread per task on Java 21 and later. Older runtimes fall back to a cached pool
+		of platform threads, which gives the same results at the cost of one platform thread per task in flight;
+		hasVirtualThreads() tells which one this is.
+	 */
+	public static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException ex) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/*
+		Submits one task per element, for work that mostly blocks, with at most maxConcurrency tasks in flight:
+		the calling thread waits for a permit before every submission. Returns the results in source order. Once
+		an element fails no more elements are submitted, and if the calling thread is interrupted or an element
+		failed, the tasks still in flight are cancelled before the exception is thrown.
+	 */
+	public static <T, R> List<R> executePerElement(ExecutorService executor, List<T> sourceList, Function<T, R> func, int maxConcurrency) throws InterruptedException, ExecutionException {
+		if (maxConcurrency <= 0) {
+			throw new IllegalArgumentException("Concurrency limit must be positive");
+		}
+
+		Semaphore permits = new Semaphore(maxConcurrency);
+		AtomicBoolean failed = new AtomicBoolean();
+		List<Future<R>> futures = new ArrayList<>(sourceList.size());
+		List<R> results = new ArrayList<>(sourceList.size());
+
+		try {
+			for (T element : sourceList) {
+				permits.acquire();
+				if (failed.get()) {
+					break;
+				}
+				futures.add(executor.submit(() -> {
+					try {
+						return func.apply(element);
+					} catch (RuntimeException | Error ex) {
+						failed.set(true);
+						throw ex;
+					} finally {
+						permits.release();
+					}
+				}));
+			}
+			for (Future<R> future : futures) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException | ExecutionException | RuntimeException ex) {
+			futures.forEach(future -> future.cancel(true));
+			throw ex;
+		}
+		return results;
+	}
+
+	private static Long block(Long element) {
+		try {
+			Thread.sleep(BLOCKING_MILLIS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		return Thread.currentThread().getId();
+	}
+
+	/*
+		Runs elementCount blocking elements on the fixed pool and then one virtual thread per element.
+	 */
+	private void compareVirtualThreads(int maxConcurrency, int elementCount) throws Exception {
+		List<Long> elements = new ArrayList<>();
+		Instant start, end;
+
+		IntStream.range(0, elementCount).forEach(i -> elements.add((long) i));
+
+		start = Instant.now();
+		for (Future<Long> future : executorService.invokeAll(getCallables(THREADS, elements, iterator -> {
+			iterator.forEachRemaining(ExecutorIterators::block);
+			return Thread.currentThread().getId();
+		}))) {
+			future.get();
+		}
+		end = Instant.now();
+		System.out.printf("Fixed pool of %1$d threads, %2$d elements (millis): %3$d\n", THREADS, elementCount, Duration.between(start, end).toMillis());
+
+		ExecutorService virtualExecutor = newVirtualThreadExecutor();
+		try {
+			start = Instant.now();
+			executePerElement(virtualExecutor, elements, ExecutorIterators::block, maxConcurrency);
+			end = Instant.now();
+		} finally {
+			virtualExecutor.shutdown();
+		}
+		System.out.printf("Thread per element on a %1$s, at most %2$d in flight, %3$d elements (millis): %4$d\n", getVirtualThreadExecutorName(), maxConcurrency, elementCount, Duration.between(start, end).toMillis());
+	}
+
 	public ExecutorIterators() {
 		Random random = new Random();
 		IntStream.range(0, MAX_ELEMENTS).forEach(i -> {
@@ -147,9 +698,23 @@ public class ExecutorIterators {
 		return callableList;
 	}
 
+	/*
+		Usage: ExecutorIterators [-virtual <max concurrency> <element count>]
+		-virtual compares the fixed pool with a virtual thread per element on elements that block.
+	 */
 	public static void main (String [] params) throws Exception {
 		ExecutorIterators executorIterators = new ExecutorIterators();
 		ExecutorService executorService = executorIterators.getExecutorService();
+
+		if (params.length == 3 && params[0].equals("-virtual")) {
+			try {
+				executorIterators.compareVirtualThreads(Integer.parseInt(params[1]), Integer.parseInt(params[2]));
+			} finally {
+				executorService.shutdown();
+			}
+			return;
+		}
+
 		List<Callable<Long>> callableList = executorIterators.getCallableList();
 		List<Future<Long>> futureList = new ArrayList<>();
 		Instant start, end;
@@ -0,0 +1,434 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+import java.time.Instant;
+import java.time.Duration;
+
+/*
+    A program to process an iterator through several stages, each with its own number of threads, connected by bounded queues.
+    Copyright (C) 2018 Lewis Tat Fong Choo Man
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see http://www.gnu.org/licenses/gpl.html.
+ */
+
+public class ExecutorPipeline<T> {
+
+	private static final int SPINS_BEFORE_PARK = 64;
+	private static final long PARK_NANOS = 50_000L;
+	private static final long SAMPLE_MILLIS = 10;
+
+	private Iterator<?> source;
+	private List<Stage> stages;
+
+	/*
+		Bounded multi-producer multi-consumer queue over a ring of slots, after Dmitry Vyukov's design: producers
+		and consumers claim positions with a compare-and-set on their own counter, and every slot carries a sequence
+		number telling whether it is free for the producer or filled for the consumer of a given position.
+		offer() and poll() never block; they return false or null when the queue is full or empty.
+	 */
+	private static class RingBuffer<E> {
+		private AtomicReferenceArray<E> elements;
+		private AtomicLongArray sequences;
+		private AtomicLong head = new AtomicLong(), tail = new AtomicLong();
+		private int mask;
+		private volatile boolean closed = false;
+
+		public RingBuffer(int capacity) {
+			// A single slot cannot tell a filled slot from one free for the next round, so two is the minimum
+			int size = Math.max(2, (capacity <= 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1);
+			this.elements = new AtomicReferenceArray<>(size);
+			this.sequences = new AtomicLongArray(size);
+			this.mask = size - 1;
+			for (int i = 0; i < size; i++) {
+				sequences.set(i, i);
+			}
+		}
+
+		public boolean offer(E element) {
+			long position = tail.get();
+			int index;
+			while (true) {
+				index = (int) (position & mask);
+				long difference = sequences.get(index) - position;
+				if (difference == 0) {
+					if (tail.compareAndSet(position, position + 1)) {
+						break;
+					}
+					position = tail.get();
+				} else if (difference < 0) {
+					return false;
+				} else {
+					position = tail.get();
+				}
+			}
+			elements.lazySet(index, element);
+			sequences.set(index, position + 1);
+			return true;
+		}
+
+		public E poll() {
+			long position = head.get();
+			int index;
+			while (true) {
+				index = (int) (position & mask);
+				long difference = sequences.get(index) - (position + 1);
+				if (difference == 0) {
+					if (head.compareAndSet(position, position + 1)) {
+						break;
+					}
+					position = head.get();
+				} else if (difference < 0) {
+					return null;
+				} else {
+					position = head.get();
+				}
+			}
+			E element = elements.get(index);
+			elements.lazySet(index, null);
+			sequences.set(index, position + mask + 1);
+			return element;
+		}
+
+		public int size() {
+			return (int) Math.max(0, Math.min(tail.get() - head.get(), mask + 1));
+		}
+	}
+
+	private static class Stage {
+		private String name;
+		private int workers;
+		private int capacity;
+		private Function<Object, Object> func;
+
+		private RingBuffer<Object> input;
+		private AtomicInteger remainingWorkers;
+		private LongAdder processed;
+		private LongAdder inputWaitNanos, outputWaitNanos;
+		private long finishNanos, depthSum, depthSamples, maxDepth;
+	}
+
+	/*
+		Statistics of one stage over a run. The stage with the highest queue depth in front of it and the least
+		time waiting for input is the bottleneck; stages after it wait for input, stages before it wait for output.
+	 */
+	public static class StageStats {
+		private String name;
+		private int workers;
+		private long processed;
+		private double elementsPerSecond;
+		private double averageQueueDepth;
+		private long maxQueueDepth;
+		private long inputWaitMillis, outputWaitMillis;
+
+		public String getName() {
+			return name;
+		}
+
+		public int getWorkers() {
+			return workers;
+		}
+
+		public long getProcessed() {
+			return processed;
+		}
+
+		public double getElementsPerSecond() {
+			return elementsPerSecond;
+		}
+
+		public double getAverageQueueDepth() {
+			return averageQueueDepth;
+		}
+
+		public long getMaxQueueDepth() {
+			return maxQueueDepth;
+		}
+
+		public long getInputWaitMillis() {
+			return inputWaitMillis;
+		}
+
+		public long getOutputWaitMillis() {
+			return outputWaitMillis;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-12s workers %3d, elements %9d, %12.0f/s, queue depth avg %8.1f max %6d, waiting for input %6d ms, output %6d ms",
+					name, workers, processed, elementsPerSecond, averageQueueDepth, maxQueueDepth, inputWaitMillis, outputWaitMillis);
+		}
+	}
+
+	private ExecutorPipeline(Iterator<?> source, List<Stage> stages) {
+		this.source = source;
+		this.stages = stages;
+	}
+
+	/*
+		Starts a pipeline reading the source iterator from a single thread.
+	 */
+	public static <T> ExecutorPipeline<T> from(Iterator<T> source) {
+		if (source == null) {
+			throw new NullPointerException();
+		}
+		return new ExecutorPipeline<>(source, new ArrayList<>());
+	}
+
+	/*
+		Appends a stage of workers threads taking elements from a queue of capacity elements and applying func to
+		them. The capacity is rounded up to the next power of two, with a minimum of two. A result of null drops
+		the element. The returned pipeline shares the stages of this one.
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> ExecutorPipeline<R> then(String name, int workers, int capacity, Function<? super T, ? extends R> func) {
+		if (func == null) {
+			throw new NullPointerException();
+		}
+		if (workers <= 0 || capacity <= 0) {
+			throw new IllegalArgumentException("Workers and queue capacity must be positive");
+		}
+
+		Stage stage = new Stage();
+		stage.name = name;
+		stage.workers = workers;
+		stage.capacity = capacity;
+		stage.func = (Function<Object, Object>) func;
+		stages.add(stage);
+		return new ExecutorPipeline<>(source, stages);
+	}
+
+	/*
+		Appends the last stage, which consumes the elements without passing anything on.
+	 */
+	public ExecutorPipeline<Void> sink(String name, int workers, int capacity, Consumer<? super T> consumer) {
+		if (consumer == null) {
+			throw new NullPointerException();
+		}
+		return then(name, workers, capacity, element -> {
+			consumer.accept(element);
+			return null;
+		});
+	}
+
+	private static void idle(int attempt) {
+		if (attempt < SPINS_BEFORE_PARK) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(PARK_NANOS);
+		}
+	}
+
+	/*
+		Waits until the queue accepts the element, which is the backpressure on the stage feeding it. Returns false
+		if the run failed meanwhile.
+	 */
+	private static boolean put(RingBuffer<Object> queue, Object element, LongAdder waitNanos, AtomicReference<Throwable> failure) {
+		if (queue.offer(element)) {
+			return true;
+		}
+
+		long start = System.nanoTime();
+		for (int attempt = 0; !queue.offer(element); attempt++) {
+			if (failure.get() != null) {
+				return false;
+			}
+			idle(attempt);
+		}
+		waitNanos.add(System.nanoTime() - start);
+		return true;
+	}
+
+	private static void finish(Stage stage, RingBuffer<Object> output) {
+		if (stage.remainingWorkers.decrementAndGet() == 0) {
+			stage.finishNanos = System.nanoTime();
+			if (output != null) {
+				output.closed = true;
+			}
+		}
+	}
+
+	private static void runWorker(Stage stage, RingBuffer<Object> output, AtomicReference<Throwable> failure) {
+		RingBuffer<Object> input = stage.input;
+		try {
+			while (failure.get() == null) {
+				// Once the queue is closed no element can be added, so an empty poll after it means the stage is done
+				boolean closed = input.closed;
+				Object element = input.poll();
+				if (element == null) {
+					if (closed) {
+						break;
+					}
+					long start = System.nanoTime();
+					for (int attempt = 0; (element = input.poll()) == null && !input.closed && failure.get() == null; attempt++) {
+						idle(attempt);
+					}
+					stage.inputWaitNanos.add(System.nanoTime() - start);
+					if (element == null) {
+						continue;
+					}
+				}
+
+				Object result = stage.func.apply(element);
+				if (result != null && output != null && !put(output, result, stage.outputWaitNanos, failure)) {
+					break;
+				}
+				stage.processed.increment();
+			}
+		} catch (Throwable t) {
+			failure.compareAndSet(null, t);
+		} finally {
+			finish(stage, output);
+		}
+	}
+
+	private static void reset(Stage stage) {
+		stage.input = new RingBuffer<>(Math.max(1, stage.capacity));
+		stage.remainingWorkers = new AtomicInteger(stage.workers);
+		stage.processed = new LongAdder();
+		stage.inputWaitNanos = new LongAdder();
+		stage.outputWaitNanos = new LongAdder();
+		stage.depthSum = stage.depthSamples = stage.maxDepth = 0;
+	}
+
+	private void sampleQueueDepths() {
+		for (Stage stage : stages) {
+			long depth = stage.input.size();
+			stage.depthSum += depth;
+			stage.depthSamples++;
+			stage.maxDepth = Math.max(stage.maxDepth, depth);
+		}
+	}
+
+	private static StageStats getStats(Stage stage, long startNanos) {
+		StageStats stats = new StageStats();
+		stats.name = stage.name;
+		stats.workers = stage.workers;
+		stats.processed = stage.processed.sum();
+		stats.elementsPerSecond = stats.processed * 1e9 / Math.max(1, stage.finishNanos - startNanos);
+		stats.averageQueueDepth = (stage.depthSamples > 0) ? (double) stage.depthSum / stage.depthSamples : 0;
+		stats.maxQueueDepth = stage.maxDepth;
+		stats.inputWaitMillis = TimeUnit.NANOSECONDS.toMillis(stage.inputWaitNanos.sum());
+		stats.outputWaitMillis = TimeUnit.NANOSECONDS.toMillis(stage.outputWaitNanos.sum());
+		return stats;
+	}
+
+	/*
+		Runs the source and every stage to completion on threads of their own and returns the statistics of the
+		source followed by the stages. The first exception thrown by a stage stops the run and is rethrown wrapped
+		in an ExecutionException. The source iterator is consumed, so a pipeline runs once.
+	 */
+	public List<StageStats> run() throws InterruptedException, ExecutionException {
+		if (stages.isEmpty()) {
+			throw new IllegalStateException("Pipeline has no stage");
+		}
+
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Stage sourceStage = new Stage();
+		int threads = 1;
+
+		sourceStage.name = "source";
+		sourceStage.workers = 1;
+		reset(sourceStage);
+		for (Stage stage : stages) {
+			reset(stage);
+			threads += stage.workers;
+		}
+
+		ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		long startNanos = System.nanoTime();
+
+		try {
+			RingBuffer<Object> first = stages.get(0).input;
+			executorService.execute(() -> {
+				try {
+					while (source.hasNext() && failure.get() == null) {
+						if (!put(first, source.next(), sourceStage.outputWaitNanos, failure)) {
+							break;
+						}
+						sourceStage.processed.increment();
+					}
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				} finally {
+					finish(sourceStage, first);
+				}
+			});
+			for (int i = 0; i < stages.size(); i++) {
+				Stage stage = stages.get(i);
+				RingBuffer<Object> output = (i + 1 < stages.size()) ? stages.get(i + 1).input : null;
+				for (int j = 0; j < stage.workers; j++) {
+					executorService.execute(() -> runWorker(stage, output, failure));
+				}
+			}
+		} finally {
+			executorService.shutdown();
+		}
+		while (!executorService.awaitTermination(SAMPLE_MILLIS, TimeUnit.MILLISECONDS)) {
+			sampleQueueDepths();
+		}
+
+		if (failure.get() != null) {
+			throw new ExecutionException(failure.get());
+		}
+
+		List<StageStats> statsList = new ArrayList<>();
+		statsList.add(getStats(sourceStage, startNanos));
+		stages.forEach(stage -> statsList.add(getStats(stage, startNanos)));
+		return statsList;
+	}
+
+	/*
+		Usage: ExecutorPipeline [<element count>]
+		Runs a read, transform and write pipeline where the transform stage is the slowest per element.
+	 */
+	public static void main (String [] params) throws Exception {
+		long elementCount = (params.length > 0) ? Long.parseLong(params[0]) : 200_000;
+		LongAdder written = new LongAdder();
+		List<StageStats> statsList;
+		Instant start, end;
+
+		ExecutorPipeline<Void> pipeline = ExecutorPipeline.from(LongStream.range(0, elementCount).iterator())
+				.then("read", 1, 1024, e -> Long.toString(e))
+				.then("transform", 4, 1024, s -> {
+					long hash = 0;
+					for (int i = 0; i < 2000; i++) {
+						hash = hash * 31 + s.charAt(i % s.length());
+					}
+					return hash;
+				})
+				.sink("write", 1, 1024, hash -> written.add(hash & 1));
+
+		start = Instant.now();
+		statsList = pipeline.run();
+		end = Instant.now();
+
+		statsList.forEach(System.out::println);
+		System.out.printf("Written: %1$d\n", written.sum());
+		System.out.printf("Execution time (millis): %1$d\n", Duration.between(start, end).toMillis());
+	}
+}
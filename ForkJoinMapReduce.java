@@ -0,0 +1,281 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongUnaryOperator;
+import java.time.Instant;
+import java.time.Duration;
+
+/*
+    A program to map and reduce a list or a long array in parallel with ForkJoinPool, without any thread waiting on a join.
+    Copyright (C) 2018 Lewis Tat Fong Choo Man
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see http://www.gnu.org/licenses/gpl.html.
+ */
+
+public class ForkJoinMapReduce {
+
+	private static final int THREADS = 4;
+	private static final int ROUNDS = 5;
+
+	/*
+		All the reducers below work the same way. A task keeps halving its range, forking the right half and
+		adding it to its list of forks, until the split policy stops it, then reduces the rest of the range
+		itself. The pending count of a task is its number of forks, so the last of a task and its forks to finish
+		completes it: firstComplete() and nextComplete() walk up the completed tasks, each merging the results of
+		its forks, nearest first, into its own. No thread ever waits for another task.
+	 */
+	private static class MapReducer<T, R> extends CountedCompleter<R> {
+		private List<T> elements;
+		private int from, to;
+		private ExecutorForkJoin.SplitPolicy splitPolicy;
+		private Function<? super T, ? extends R> mapper;
+		private BinaryOperator<R> combiner;
+		private MapReducer<T, R> forks, next;
+		private R result;
+
+		public MapReducer(CountedCompleter<?> parent, List<T> elements, int from, int to, ExecutorForkJoin.SplitPolicy splitPolicy, Function<? super T, ? extends R> mapper, R identity, BinaryOperator<R> combiner, MapReducer<T, R> next) {
+			super(parent);
+			this.elements = elements;
+			this.from = from;
+			this.to = to;
+			this.splitPolicy = splitPolicy;
+			this.mapper = mapper;
+			this.result = identity;
+			this.combiner = combiner;
+			this.next = next;
+		}
+
+		@Override
+		public void compute() {
+			int low = from, high = to;
+			while (splitPolicy.shouldSplit(high - low)) {
+				int mid = (low + high) >>> 1;
+				addToPendingCount(1);
+				(forks = new MapReducer<>(this, elements, mid, high, splitPolicy, mapper, result, combiner, forks)).fork();
+				high = mid;
+			}
+
+			long start = System.nanoTime();
+			R value = result;
+			for (int i = low; i < high; i++) {
+				value = combiner.apply(value, mapper.apply(elements.get(i)));
+			}
+			result = value;
+			splitPolicy.record(high - low, System.nanoTime() - start);
+
+			for (CountedCompleter<?> c = firstComplete(); c != null; c = c.nextComplete()) {
+				@SuppressWarnings("unchecked")
+				MapReducer<T, R> task = (MapReducer<T, R>) c;
+				for (MapReducer<T, R> fork = task.forks; fork != null; fork = fork.next) {
+					task.result = combiner.apply(task.result, fork.result);
+				}
+			}
+		}
+
+		@Override
+		public R getRawResult() {
+			return result;
+		}
+	}
+
+	private static class LongMapReducer extends CountedCompleter<Void> {
+		private long[] elements;
+		private int from, to;
+		private ExecutorForkJoin.SplitPolicy splitPolicy;
+		private LongUnaryOperator mapper;
+		private LongBinaryOperator combiner;
+		private LongMapReducer forks, next;
+		private long result;
+
+		public LongMapReducer(CountedCompleter<?> parent, long[] elements, int from, int to, ExecutorForkJoin.SplitPolicy splitPolicy, LongUnaryOperator mapper, long identity, LongBinaryOperator combiner, LongMapReducer next) {
+			super(parent);
+			this.elements = elements;
+			this.from = from;
+			this.to = to;
+			this.splitPolicy = splitPolicy;
+			this.mapper = mapper;
+			this.result = identity;
+			this.combiner = combiner;
+			this.next = next;
+		}
+
+		@Override
+		public void compute() {
+			int low = from, high = to;
+			while (splitPolicy.shouldSplit(high - low)) {
+				int mid = (low + high) >>> 1;
+				addToPendingCount(1);
+				(forks = new LongMapReducer(this, elements, mid, high, splitPolicy, mapper, result, combiner, forks)).fork();
+				high = mid;
+			}
+
+			long start = System.nanoTime();
+			long value = result;
+			for (int i = low; i < high; i++) {
+				value = combiner.applyAsLong(value, mapper.applyAsLong(elements[i]));
+			}
+			result = value;
+			splitPolicy.record(high - low, System.nanoTime() - start);
+
+			for (CountedCompleter<?> c = firstComplete(); c != null; c = c.nextComplete()) {
+				LongMapReducer task = (LongMapReducer) c;
+				for (LongMapReducer fork = task.forks; fork != null; fork = fork.next) {
+					task.result = combiner.applyAsLong(task.result, fork.result);
+				}
+			}
+		}
+	}
+
+	private static class DoubleMapReducer extends CountedCompleter<Void> {
+		private long[] elements;
+		private int from, to;
+		private ExecutorForkJoin.SplitPolicy splitPolicy;
+		private LongToDoubleFunction mapper;
+		private DoubleBinaryOperator combiner;
+		private DoubleMapReducer forks, next;
+		private double result;
+
+		public DoubleMapReducer(CountedCompleter<?> parent, long[] elements, int from, int to, ExecutorForkJoin.SplitPolicy splitPolicy, LongToDoubleFunction mapper, double identity, DoubleBinaryOperator combiner, DoubleMapReducer next) {
+			super(parent);
+			this.elements = elements;
+			this.from = from;
+			this.to = to;
+			this.splitPolicy = splitPolicy;
+			this.mapper = mapper;
+			this.result = identity;
+			this.combiner = combiner;
+			this.next = next;
+		}
+
+		@Override
+		public void compute() {
+			int low = from, high = to;
+			while (splitPolicy.shouldSplit(high - low)) {
+				int mid = (low + high) >>> 1;
+				addToPendingCount(1);
+				(forks = new DoubleMapReducer(this, elements, mid, high, splitPolicy, mapper, result, combiner, forks)).fork();
+				high = mid;
+			}
+
+			long start = System.nanoTime();
+			double value = result;
+			for (int i = low; i < high; i++) {
+				value = combiner.applyAsDouble(value, mapper.applyAsDouble(elements[i]));
+			}
+			result = value;
+			splitPolicy.record(high - low, System.nanoTime() - start);
+
+			for (CountedCompleter<?> c = firstComplete(); c != null; c = c.nextComplete()) {
+				DoubleMapReducer task = (DoubleMapReducer) c;
+				for (DoubleMapReducer fork = task.forks; fork != null; fork = fork.next) {
+					task.result = combiner.applyAsDouble(task.result, fork.result);
+				}
+			}
+		}
+	}
+
+	/*
+		Maps every element and reduces the results with combiner, which must be associative with identity as its
+		identity value: every leaf starts from identity, and results are merged in element order. Lists that are
+		not RandomAccess are copied once into an ArrayList.
+	 */
+	public static <T, R> R mapReduce(ForkJoinPool pool, List<T> elements, ExecutorForkJoin.SplitPolicy splitPolicy, Function<? super T, ? extends R> mapper, R identity, BinaryOperator<R> combiner) {
+		if (splitPolicy == null || mapper == null || combiner == null) {
+			throw new NullPointerException();
+		}
+
+		List<T> source = (elements instanceof RandomAccess) ? elements : new ArrayList<>(elements);
+		return pool.invoke(new MapReducer<>(null, source, 0, source.size(), splitPolicy, mapper, identity, combiner, null));
+	}
+
+	/*
+		Same as mapReduce() on the primitive long values of an array, without boxing.
+	 */
+	public static long mapReduceToLong(ForkJoinPool pool, long[] elements, ExecutorForkJoin.SplitPolicy splitPolicy, LongUnaryOperator mapper, long identity, LongBinaryOperator combiner) {
+		if (splitPolicy == null || mapper == null || combiner == null) {
+			throw new NullPointerException();
+		}
+
+		LongMapReducer task = new LongMapReducer(null, elements, 0, elements.length, splitPolicy, mapper, identity, combiner, null);
+		pool.invoke(task);
+		return task.result;
+	}
+
+	/*
+		Same as mapReduce() mapping the long values of an array to primitive doubles, without boxing.
+	 */
+	public static double mapReduceToDouble(ForkJoinPool pool, long[] elements, ExecutorForkJoin.SplitPolicy splitPolicy, LongToDoubleFunction mapper, double identity, DoubleBinaryOperator combiner) {
+		if (splitPolicy == null || mapper == null || combiner == null) {
+			throw new NullPointerException();
+		}
+
+		DoubleMapReducer task = new DoubleMapReducer(null, elements, 0, elements.length, splitPolicy, mapper, identity, combiner, null);
+		pool.invoke(task);
+		return task.result;
+	}
+
+	/*
+		Usage: ForkJoinMapReduce [<element count>]
+		Sums random elements with a joining RangeTask, then with the long and double reducers, printing the best
+		time of ROUNDS runs of each so that the first runs do not measure the JIT compilation.
+	 */
+	public static void main (String [] params) throws Exception {
+		int elementCount = (params.length > 0) ? Integer.parseInt(params[0]) : 10_000_000;
+		ForkJoinPool forkJoinPool = new ForkJoinPool(THREADS);
+		long[] elements = new Random().longs(elementCount, 0, 1000).toArray();
+		long joinedSum = 0, sum = 0, joinedMillis = Long.MAX_VALUE, sumMillis = Long.MAX_VALUE, squaresMillis = Long.MAX_VALUE;
+		double squares = 0;
+		Instant start, end;
+
+		try {
+			for (int round = 0; round < ROUNDS; round++) {
+				start = Instant.now();
+				joinedSum = forkJoinPool.invoke(new ExecutorForkJoin.RangeTask<Long>(elements, ExecutorForkJoin.SplitPolicy.adaptive(), (array, from, to) -> {
+					long rangeSum = 0;
+					for (int i = from; i < to; i++) {
+						rangeSum += array[i];
+					}
+					return rangeSum;
+				}, Long::sum));
+				end = Instant.now();
+				joinedMillis = Math.min(joinedMillis, Duration.between(start, end).toMillis());
+
+				start = Instant.now();
+				sum = mapReduceToLong(forkJoinPool, elements, ExecutorForkJoin.SplitPolicy.adaptive(), e -> e, 0, Long::sum);
+				end = Instant.now();
+				sumMillis = Math.min(sumMillis, Duration.between(start, end).toMillis());
+
+				start = Instant.now();
+				squares = mapReduceToDouble(forkJoinPool, elements, ExecutorForkJoin.SplitPolicy.adaptive(), e -> (double) e * e, 0, Double::sum);
+				end = Instant.now();
+				squaresMillis = Math.min(squaresMillis, Duration.between(start, end).toMillis());
+			}
+		} finally {
+			forkJoinPool.shutdown();
+			forkJoinPool.awaitTermination(1, TimeUnit.SECONDS);
+		}
+		System.out.printf("Joined sum %1$d (millis): %2$d\n", joinedSum, joinedMillis);
+		System.out.printf("Completer sum %1$d (millis): %2$d\n", sum, sumMillis);
+		System.out.printf("Completer mean square %1$.1f (millis): %2$d\n", squares / elementCount, squaresMillis);
+	}
+}
@@ -0,0 +1,249 @@
+package com.android.lewis.longestword;
+
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+
+/*
+    A Java Enumeration implementation to return combinations of int symbols, such as Unicode code points or symbol ids, without any duplication caused by repeated symbols.
+    Copyright (C) 2018 Lewis Tat Fong Choo Man
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see http://www.gnu.org/licenses/gpl.html.
+ */
+
+public class IntCombinations implements Enumeration<int[]> {
+
+    private int combinationSymbolCount;
+    private int startPosition = 0;
+    private boolean nextFound = false;
+    private int[] domainSymbols;
+    private int[] domainCounts;
+    private int[] remainingCounts;
+    private int[] symbolIndexes;
+    private int[] currentCombination;
+
+    /*
+        Callback receiving each combination in turn. The same buffer is passed on every call and is only valid
+        for the duration of the call; copy the first length symbols if they need to be kept.
+     */
+    public interface IntCombinationVisitor
+    {
+        void visit(int[] combination, int length);
+    }
+
+    public IntCombinations (int[] symbols, int combinationSymbolCount)
+    {
+        if (symbols == null)
+        {
+            throw new NullPointerException();
+        }
+
+        if (symbols.length <= 0)
+        {
+            throw new IllegalArgumentException("Length of domain symbols cannot be zero");
+        }
+        else if (combinationSymbolCount <= 0)
+        {
+            throw new IllegalArgumentException("Combination symbol count cannot be zero or less");
+        }
+        else if (combinationSymbolCount >= symbols.length)
+        {
+            throw new IllegalArgumentException("Combination symbol count cannot be higher or equal to the length of domain symbols");
+        }
+
+        int[] sortedSymbols = symbols.clone();
+        int distinct = 0;
+
+        Arrays.sort(sortedSymbols);
+        this.domainSymbols = new int[sortedSymbols.length];
+        this.domainCounts = new int[sortedSymbols.length];
+        for (int i = 0; i < sortedSymbols.length; i++)
+        {
+            if (distinct == 0 || this.domainSymbols[distinct - 1] != sortedSymbols[i])
+            {
+                this.domainSymbols[distinct++] = sortedSymbols[i];
+            }
+            this.domainCounts[distinct - 1]++;
+        }
+        this.domainSymbols = Arrays.copyOf(this.domainSymbols, distinct);
+        this.domainCounts = Arrays.copyOf(this.domainCounts, distinct);
+
+        this.remainingCounts = this.domainCounts.clone();
+        this.combinationSymbolCount = combinationSymbolCount;
+        this.symbolIndexes = new int[combinationSymbolCount];
+        Arrays.fill(this.symbolIndexes, -1);
+        this.currentCombination = new int[combinationSymbolCount];
+    }
+
+    /*
+        Combinations of the Unicode code points of a string, so supplementary characters are never split into
+        their surrogate halves.
+     */
+    public static IntCombinations ofCodePoints(String s, int combinationSymbolCount)
+    {
+        if (s == null)
+        {
+            throw new NullPointerException();
+        }
+        return new IntCombinations(s.codePoints().toArray(), combinationSymbolCount);
+    }
+
+    @Override
+    public boolean hasMoreElements() {
+        if (!this.nextFound && this.startPosition > -1)
+        {
+            this.nextFound = findNextCombination();
+        }
+        return this.nextFound;
+    }
+
+    @Override
+    public int[] nextElement() throws NoSuchElementException {
+        return nextCombination().clone();
+    }
+
+    /*
+        Returns the next combination as a string of code points.
+     */
+    public String nextString() throws NoSuchElementException {
+        return new String(nextCombination(), 0, this.combinationSymbolCount);
+    }
+
+    private int[] nextCombination() throws NoSuchElementException {
+        if (hasMoreElements())
+        {
+            this.nextFound = false;
+            return this.currentCombination;
+        }
+        else
+        {
+            throw new NoSuchElementException("No more elements");
+        }
+    }
+
+    /*
+        Moves the symbol at startPosition to the next distinct symbol that is still available and leaves enough
+        symbols for the positions after it, backtracking to the position before it when there is none, and fills
+        the positions after it with the first available ones. Symbols never decrease along a combination.
+     */
+    private boolean findNextCombination()
+    {
+        int[] counts = this.remainingCounts;
+        int i = this.startPosition;
+
+        while (i > -1)
+        {
+            int j = this.symbolIndexes[i];
+            if (j >= 0)
+            {
+                counts[j]++;
+            }
+            else
+            {
+                j = (i == 0) ? -1 : this.symbolIndexes[i - 1] - 1;
+            }
+            for (j++; j < counts.length && counts[j] == 0; j++)
+            {
+            }
+            if (!canFill(counts, j, this.combinationSymbolCount - i))
+            {
+                this.symbolIndexes[i--] = -1;
+                continue;
+            }
+
+            this.symbolIndexes[i] = j;
+            counts[j]--;
+            this.currentCombination[i] = this.domainSymbols[j];
+            if (i == this.combinationSymbolCount - 1)
+            {
+                break;
+            }
+            i++;
+        }
+        this.startPosition = i;
+        return (i > -1);
+    }
+
+    private static boolean canFill(int[] counts, int from, int symbolCount)
+    {
+        int totalSymbolLeft = 0;
+
+        for (int i = from; i < counts.length && totalSymbolLeft < symbolCount; i++)
+        {
+            totalSymbolLeft += counts[i];
+        }
+        return (totalSymbolLeft >= symbolCount);
+    }
+
+    /*
+        Passes every combination, in the same order as the enumeration, to the visitor without creating any
+        object per combination. Independent of the enumeration state.
+     */
+    public void visitAll(IntCombinationVisitor visitor)
+    {
+        if (visitor == null)
+        {
+            throw new NullPointerException();
+        }
+
+        int[] counts = this.domainCounts.clone();
+        int[] indexes = new int[this.combinationSymbolCount];
+        int[] combination = new int[this.combinationSymbolCount];
+        int i = 0;
+
+        indexes[0] = -1;
+        while (i > -1)
+        {
+            int j = indexes[i];
+            if (j >= 0)
+            {
+                counts[j]++;
+            }
+            else
+            {
+                j = (i == 0) ? -1 : indexes[i - 1] - 1;
+            }
+            for (j++; j < counts.length && counts[j] == 0; j++)
+            {
+            }
+            if (!canFill(counts, j, this.combinationSymbolCount - i))
+            {
+                i--;
+                continue;
+            }
+
+            indexes[i] = j;
+            counts[j]--;
+            combination[i] = this.domainSymbols[j];
+            if (i == this.combinationSymbolCount - 1)
+            {
+                visitor.visit(combination, this.combinationSymbolCount);
+            }
+            else
+            {
+                indexes[++i] = -1;
+            }
+        }
+    }
+
+    public static void main (String [] args)
+    {
+        IntCombinations e = IntCombinations.ofCodePoints("\uD83D\uDE00ab\uD83D\uDE00", 2);
+
+        while (e.hasMoreElements())
+        {
+             System.out.println(e.nextString());
+        }
+    }
+}
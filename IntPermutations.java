@@ -0,0 +1,229 @@
+package com.android.lewis.permutations;
+
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+
+/*
+    A Java Enumeration implementation to return permutations of int symbols, such as Unicode code points or symbol ids, without any duplication caused by repeated symbols.
+    Copyright (C) 2018 Lewis Tat Fong Choo Man
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see http://www.gnu.org/licenses/gpl.html.
+ */
+
+public class IntPermutations implements Enumeration<int[]> {
+
+    private int permutationSymbolCount;
+    private int startPosition = 0;
+    private boolean nextFound = false;
+    private int[] domainSymbols;
+    private int[] domainCounts;
+    private int[] remainingCounts;
+    private int[] symbolIndexes;
+    private int[] currentPermutation;
+
+    /*
+        Callback receiving each permutation in turn. The same buffer is passed on every call and is only valid
+        for the duration of the call; copy the first length symbols if they need to be kept.
+     */
+    public interface IntPermutationVisitor
+    {
+        void visit(int[] permutation, int length);
+    }
+
+    public IntPermutations (int[] symbols, int permutationSymbolCount)
+    {
+        if (symbols == null)
+        {
+            throw new NullPointerException();
+        }
+
+        if (symbols.length <= 0)
+        {
+            throw new IllegalArgumentException("Length of domain symbols cannot be zero");
+        }
+        else if (permutationSymbolCount <= 0)
+        {
+            throw new IllegalArgumentException("Permutation symbol count cannot be zero or less");
+        }
+        else if (permutationSymbolCount > symbols.length)
+        {
+            throw new IllegalArgumentException("Permutation symbol count cannot be higher than the length of domain symbols");
+        }
+
+        int[] sortedSymbols = symbols.clone();
+        int distinct = 0;
+
+        Arrays.sort(sortedSymbols);
+        this.domainSymbols = new int[sortedSymbols.length];
+        this.domainCounts = new int[sortedSymbols.length];
+        for (int i = 0; i < sortedSymbols.length; i++)
+        {
+            if (distinct == 0 || this.domainSymbols[distinct - 1] != sortedSymbols[i])
+            {
+                this.domainSymbols[distinct++] = sortedSymbols[i];
+            }
+            this.domainCounts[distinct - 1]++;
+        }
+        this.domainSymbols = Arrays.copyOf(this.domainSymbols, distinct);
+        this.domainCounts = Arrays.copyOf(this.domainCounts, distinct);
+
+        this.remainingCounts = this.domainCounts.clone();
+        this.permutationSymbolCount = permutationSymbolCount;
+        this.symbolIndexes = new int[permutationSymbolCount];
+        Arrays.fill(this.symbolIndexes, -1);
+        this.currentPermutation = new int[permutationSymbolCount];
+    }
+
+    /*
+        Permutations of the Unicode code points of a string, so supplementary characters are never split into
+        their surrogate halves.
+     */
+    public static IntPermutations ofCodePoints(String s, int permutationSymbolCount)
+    {
+        if (s == null)
+        {
+            throw new NullPointerException();
+        }
+        return new IntPermutations(s.codePoints().toArray(), permutationSymbolCount);
+    }
+
+    @Override
+    public boolean hasMoreElements() {
+        if (!this.nextFound && this.startPosition > -1)
+        {
+            this.nextFound = findNextPermutation();
+        }
+        return this.nextFound;
+    }
+
+    @Override
+    public int[] nextElement() throws NoSuchElementException {
+        return nextPermutation().clone();
+    }
+
+    /*
+        Returns the next permutation as a string of code points.
+     */
+    public String nextString() throws NoSuchElementException {
+        return new String(nextPermutation(), 0, this.permutationSymbolCount);
+    }
+
+    private int[] nextPermutation() throws NoSuchElementException {
+        if (hasMoreElements())
+        {
+            this.nextFound = false;
+            return this.currentPermutation;
+        }
+        else
+        {
+            throw new NoSuchElementException("No more elements");
+        }
+    }
+
+    /*
+        Moves the symbol at startPosition to the next distinct symbol that is still available, backtracking to the
+        position before it when there is none, and fills the positions after it with the first available ones.
+     */
+    private boolean findNextPermutation()
+    {
+        int[] counts = this.remainingCounts;
+        int i = this.startPosition;
+
+        while (i > -1)
+        {
+            int j = this.symbolIndexes[i];
+            if (j >= 0)
+            {
+                counts[j]++;
+            }
+            for (j++; j < counts.length && counts[j] == 0; j++)
+            {
+            }
+            if (j == counts.length)
+            {
+                this.symbolIndexes[i--] = -1;
+                continue;
+            }
+
+            this.symbolIndexes[i] = j;
+            counts[j]--;
+            this.currentPermutation[i] = this.domainSymbols[j];
+            if (i == this.permutationSymbolCount - 1)
+            {
+                break;
+            }
+            i++;
+        }
+        this.startPosition = i;
+        return (i > -1);
+    }
+
+    /*
+        Passes every permutation, in the same order as the enumeration, to the visitor without creating any
+        object per permutation. Independent of the enumeration state.
+     */
+    public void visitAll(IntPermutationVisitor visitor)
+    {
+        if (visitor == null)
+        {
+            throw new NullPointerException();
+        }
+
+        int[] counts = this.domainCounts.clone();
+        int[] indexes = new int[this.permutationSymbolCount];
+        int[] permutation = new int[this.permutationSymbolCount];
+        int i = 0;
+
+        indexes[0] = -1;
+        while (i > -1)
+        {
+            int j = indexes[i];
+            if (j >= 0)
+            {
+                counts[j]++;
+            }
+            for (j++; j < counts.length && counts[j] == 0; j++)
+            {
+            }
+            if (j == counts.length)
+            {
+                i--;
+                continue;
+            }
+
+            indexes[i] = j;
+            counts[j]--;
+            permutation[i] = this.domainSymbols[j];
+            if (i == this.permutationSymbolCount - 1)
+            {
+                visitor.visit(permutation, this.permutationSymbolCount);
+            }
+            else
+            {
+                indexes[++i] = -1;
+            }
+        }
+    }
+
+    public static void main (String [] args)
+    {
+        IntPermutations e = IntPermutations.ofCodePoints("\uD83D\uDE00ab\uD83D\uDE00", 3);
+
+        while (e.hasMoreElements())
+        {
+             System.out.println(e.nextString());
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.android.lewis.longestword;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    A dictionary-pruned solver to find the longest words that can be made out of the characters of any string, without walking the branches that no word starts with.
+    Copyright (C) 2018 Lewis Tat Fong Choo Man
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see http://www.gnu.org/licenses/gpl.html.
+ */
+
+public class LongestWord {
+
+    private static final int INITIAL_NODE_CAPACITY = 1024;
+
+    /*
+        The dictionary is kept as a trie in parallel arrays. Node 0 is the root, children of a node are linked
+        through firstChild/nextSibling in ascending label order, and height is the length of the longest word
+        suffix below a node.
+     */
+    private char[] labels = new char[INITIAL_NODE_CAPACITY];
+    private int[] firstChild = new int[INITIAL_NODE_CAPACITY];
+    private int[] nextSibling = new int[INITIAL_NODE_CAPACITY];
+    private int[] heights = new int[INITIAL_NODE_CAPACITY];
+    private boolean[] terminal = new boolean[INITIAL_NODE_CAPACITY];
+    private int nodeCount = 0;
+
+    public LongestWord (Iterable<String> words)
+    {
+        if (words == null)
+        {
+            throw new NullPointerException();
+        }
+
+        newNode('\0');
+        for (String word : words)
+        {
+            if (word != null && word.length() > 0)
+            {
+                add(word);
+            }
+        }
+    }
+
+    public static LongestWord fromFile(String path) throws IOException
+    {
+        List<String> words = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new FileReader(path));
+
+        try
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                words.add(line.trim());
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        return new LongestWord(words);
+    }
+
+    private int newNode(char label)
+    {
+        if (this.nodeCount == this.labels.length)
+        {
+            int capacity = this.nodeCount * 2;
+            this.labels = Arrays.copyOf(this.labels, capacity);
+            this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+            this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+            this.heights = Arrays.copyOf(this.heights, capacity);
+            this.terminal = Arrays.copyOf(this.terminal, capacity);
+        }
+        this.labels[this.nodeCount] = label;
+        this.firstChild[this.nodeCount] = -1;
+        this.nextSibling[this.nodeCount] = -1;
+        return this.nodeCount++;
+    }
+
+    private int getOrAddChild(int node, char label)
+    {
+        int prev = -1, child = this.firstChild[node];
+
+        for (; child != -1 && this.labels[child] < label; child = this.nextSibling[child])
+        {
+            prev = child;
+        }
+        if (child != -1 && this.labels[child] == label)
+        {
+            return child;
+        }
+
+        int newChild = newNode(label);
+        this.nextSibling[newChild] = child;
+        if (prev == -1)
+        {
+            this.firstChild[node] = newChild;
+        }
+        else
+        {
+            this.nextSibling[prev] = newChild;
+        }
+        return newChild;
+    }
+
+    private void add(String word)
+    {
+        int[] path = new int[word.length() + 1];
+        int node = 0;
+
+        for (int i = 0; i < word.length(); i++)
+        {
+            node = getOrAddChild(node, word.charAt(i));
+            path[i + 1] = node;
+        }
+        this.terminal[node] = true;
+        for (int i = 0; i < word.length(); i++)
+        {
+            this.heights[path[i]] = Math.max(this.heights[path[i]], word.length() - i);
+        }
+    }
+
+    public boolean contains(String word)
+    {
+        int node = 0;
+
+        for (int i = 0; i < word.length() && node != -1; i++)
+        {
+            int child = this.firstChild[node];
+            for (; child != -1 && this.labels[child] < word.charAt(i); child = this.nextSibling[child])
+            {
+            }
+            node = (child != -1 && this.labels[child] == word.charAt(i)) ? child : -1;
+        }
+        return node != -1 && this.terminal[node];
+    }
+
+    /*
+        Returns every dictionary word that can be made out of the characters of the rack, in ascending order.
+     */
+    public List<String> findAll(String rack)
+    {
+        return new RackSearch(rack, false).find();
+    }
+
+    /*
+        Returns the longest dictionary words that can be made out of the characters of the rack, in ascending order.
+     */
+    public List<String> findLongest(String rack)
+    {
+        return new RackSearch(rack, true).find();
+    }
+
+    private class RackSearch
+    {
+        private char[] rackChars;
+        private int[] rackCounts;
+        private char[] word;
+        private boolean longestOnly;
+        private int bestLength = 1;
+        private List<String> results = new ArrayList<String>();
+
+        public RackSearch(String rack, boolean longestOnly)
+        {
+            if (rack == null)
+            {
+                throw new NullPointerException();
+            }
+
+            // Same sorted character multiplicities as the Combinations domains
+            char[] chars = rack.toCharArray();
+            int distinct = 0;
+
+            Arrays.sort(chars);
+            this.rackChars = new char[chars.length];
+            this.rackCounts = new int[chars.length];
+            for (int i = 0; i < chars.length; i++)
+            {
+                if (distinct == 0 || this.rackChars[distinct - 1] != chars[i])
+                {
+                    this.rackChars[distinct++] = chars[i];
+                }
+                this.rackCounts[distinct - 1]++;
+            }
+            this.rackChars = Arrays.copyOf(this.rackChars, distinct);
+            this.rackCounts = Arrays.copyOf(this.rackCounts, distinct);
+            this.word = new char[chars.length];
+            this.longestOnly = longestOnly;
+        }
+
+        public List<String> find()
+        {
+            if (this.word.length > 0)
+            {
+                search(0, 0);
+            }
+            return this.results;
+        }
+
+        private void search(int node, int depth)
+        {
+            for (int child = firstChild[node]; child != -1; child = nextSibling[child])
+            {
+                int charIndex = Arrays.binarySearch(this.rackChars, labels[child]);
+                if (charIndex < 0 || this.rackCounts[charIndex] == 0)
+                {
+                    continue;
+                }
+
+                this.word[depth] = labels[child];
+                if (terminal[child])
+                {
+                    if (this.longestOnly && depth + 1 > this.bestLength)
+                    {
+                        this.results.clear();
+                        this.bestLength = depth + 1;
+                    }
+                    if (!this.longestOnly || depth + 1 == this.bestLength)
+                    {
+                        this.results.add(new String(this.word, 0, depth + 1));
+                    }
+                }
+                // Prune when the subtree is exhausted by the rack or cannot beat the best length found so far
+                if (depth + 1 < this.word.length && (!this.longestOnly || depth + 1 + heights[child] >= this.bestLength))
+                {
+                    this.rackCounts[charIndex]--;
+                    search(child, depth + 1);
+                    this.rackCounts[charIndex]++;
+                }
+            }
+        }
+    }
+
+    public static void main (String [] args) throws IOException
+    {
+        if (args.length < 2)
+        {
+            System.out.println("Usage: LongestWord <word list file> <rack>");
+            return;
+        }
+
+        LongestWord longestWord = LongestWord.fromFile(args[0]);
+        for (String word : longestWord.findLongest(args[1]))
+        {
+             System.out.println(word);
+        }
+    }
+}
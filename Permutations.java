@@ -1,5 +1,16 @@
 package com.android.lewis.permutations;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -27,10 +38,47 @@ import java.util.NoSuchElementException;
 
 public class Permutations implements Enumeration<String> {
 
+    private static final long FINGERPRINT_SEED = 0x6A09E667F3BCC908L;
+    private static final long FINGERPRINT_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
     private List<PermutationCharDomain> permutationCharDomains = new ArrayList<PermutationCharDomain>();
     private int permutationCharCount;
     private int startChar = 0;
     private StringBuilder currentPermutation;
+    private String domainString;
+    private long[] prefixFingerprints;
+    private char[] domainChars;
+    private int[] domainCounts;
+    private BigInteger count;
+    private boolean nextFound = false;
+    private PrefixPredicate prefixPredicate;
+
+    /*
+        Callback receiving each permutation in turn. The same buffer is passed on every call and is only valid
+        for the duration of the call; copy the first length characters if they need to be kept.
+     */
+    public interface PermutationVisitor
+    {
+        void visit(char[] permutation, int length);
+    }
+
+    /*
+        Callback for the minimal-change order. firstChanged and secondChanged are the positions that differ from the
+        previous permutation, or -1 when fewer positions changed; both are -1 for the first permutation.
+     */
+    public interface MinimalChangeVisitor
+    {
+        void visit(char[] permutation, int length, int firstChanged, int secondChanged);
+    }
+
+    /*
+        Decides whether a prefix can lead to a wanted permutation. Only the first length characters of prefix
+        are meaningful, and prefix must not be kept after the call returns.
+     */
+    public interface PrefixPredicate
+    {
+        boolean accept(CharSequence prefix, int length);
+    }
 
     public Permutations (String s, int permutationCharCount)
     {
@@ -59,7 +107,165 @@ public class Permutations implements Enumeration<String> {
             this.permutationCharDomains.add(new PermutationCharDomain());
         }
         this.permutationCharCount = permutationCharCount;
+        this.domainString = s;
+        this.prefixFingerprints = new long[permutationCharCount + 1];
+        this.prefixFingerprints[0] = FINGERPRINT_SEED;
         this.currentPermutation = new StringBuilder(s.substring(0, permutationCharCount));
+
+        List<Map.Entry<Character, Integer>> charMapList = this.permutationCharDomains.get(0).charMapList;
+        this.domainChars = new char[charMapList.size()];
+        this.domainCounts = new int[charMapList.size()];
+        for (int i = 0; i < charMapList.size(); i++)
+        {
+            this.domainChars[i] = charMapList.get(i).getKey();
+            this.domainCounts[i] = charMapList.get(i).getValue();
+        }
+    }
+
+    /*
+        Snapshot of the enumeration position: the domain string and character count, startChar and nextFound, the index
+        reached in every domain and the current buffer. The domains themselves are rebuilt from these on restore.
+        The file holds these fields and nothing else, so loading one never creates any other object.
+     */
+    public static class Cursor
+    {
+        private static final int FILE_MAGIC = 0x50435552; // "PCUR"
+
+        private String domainString;
+        private int charCount;
+        private int startChar;
+        private boolean nextFound;
+        private int[] domainIndexes;
+        private String current;
+
+        private static String readChars(DataInputStream in, int length) throws IOException
+        {
+            if (length < 0)
+            {
+                throw new IOException("Negative string length in cursor file");
+            }
+            StringBuilder chars = new StringBuilder();
+            for (int i = 0; i < length; i++)
+            {
+                chars.append(in.readChar());
+            }
+            return chars.toString();
+        }
+
+        public static Cursor load(File file) throws IOException
+        {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try
+            {
+                if (in.readInt() != FILE_MAGIC)
+                {
+                    throw new IOException("Not a permutation cursor file");
+                }
+                Cursor cursor = new Cursor();
+                cursor.domainString = readChars(in, in.readInt());
+                cursor.charCount = in.readInt();
+                if (cursor.charCount <= 0 || cursor.charCount > cursor.domainString.length())
+                {
+                    throw new IOException("Character count in cursor file is out of range");
+                }
+                cursor.startChar = in.readInt();
+                cursor.nextFound = in.readBoolean();
+                cursor.domainIndexes = new int[cursor.charCount];
+                for (int i = 0; i < cursor.charCount; i++)
+                {
+                    cursor.domainIndexes[i] = in.readInt();
+                }
+                cursor.current = readChars(in, cursor.charCount);
+                return cursor;
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+
+        public void save(File file) throws IOException
+        {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            try
+            {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(this.domainString.length());
+                out.writeChars(this.domainString);
+                out.writeInt(this.charCount);
+                out.writeInt(this.startChar);
+                out.writeBoolean(this.nextFound);
+                for (int index : this.domainIndexes)
+                {
+                    out.writeInt(index);
+                }
+                out.writeChars(this.current);
+            }
+            finally
+            {
+                out.close();
+            }
+        }
+    }
+
+    /*
+        Restores an enumeration from a cursor taken with getCursor(), replaying the domain chain up to startChar. The prefix predicate
+        is not part of the cursor and has to be set again.
+     */
+    public Permutations (Cursor cursor)
+    {
+        this(cursor.domainString, cursor.charCount);
+        if (cursor.domainIndexes.length != cursor.charCount || cursor.current.length() != cursor.charCount || cursor.startChar < -1 || cursor.startChar >= cursor.charCount)
+        {
+            throw new IllegalArgumentException("Cursor is not consistent with its domain string");
+        }
+
+        for (int i = 0; i <= cursor.startChar; i++)
+        {
+            if (i > 0)
+            {
+                this.permutationCharDomains.get(i - 1).setNextPermutationCharDomain(this.permutationCharDomains.get(i));
+            }
+            // Only the last domain of the chain may be before its first character
+            int index = cursor.domainIndexes[i];
+            if (index < ((i < cursor.startChar) ? 0 : -1) || index >= this.permutationCharDomains.get(i).charMapList.size())
+            {
+                throw new IllegalArgumentException("Cursor index " + index + " is out of the domain of character " + i);
+            }
+            this.permutationCharDomains.get(i).currentIndex = index;
+        }
+        for (int i = 0; i < cursor.charCount; i++)
+        {
+            if (Arrays.binarySearch(this.domainChars, cursor.current.charAt(i)) < 0)
+            {
+                throw new IllegalArgumentException("Cursor character " + i + " is not in its domain string");
+            }
+            setCurrentChar(i, cursor.current.charAt(i));
+        }
+        this.startChar = cursor.startChar;
+        this.nextFound = cursor.nextFound;
+    }
+
+    public Cursor getCursor()
+    {
+        Cursor cursor = new Cursor();
+        cursor.domainString = this.domainString;
+        cursor.charCount = this.permutationCharCount;
+        cursor.startChar = this.startChar;
+        cursor.nextFound = this.nextFound;
+        cursor.domainIndexes = new int[this.permutationCharCount];
+        for (int i = 0; i < this.permutationCharCount; i++)
+        {
+            cursor.domainIndexes[i] = this.permutationCharDomains.get(i).currentIndex;
+        }
+        cursor.current = this.currentPermutation.toString();
+        return cursor;
+    }
+
+    public Permutations (String s, int permutationCharCount, BigInteger startIndex)
+    {
+        this(s, permutationCharCount);
+        seek(startIndex);
     }
 
     private class MapEntry<K, V> implements Map.Entry<K, V>
@@ -147,6 +353,18 @@ public class Permutations implements Enumeration<String> {
             return this.charMapList.get(++this.currentIndex).getKey();
         }
 
+        public int indexOf(char c)
+        {
+            for (int i = 0; i < this.charMapList.size(); i++)
+            {
+                if (this.charMapList.get(i).getKey() == c)
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
         public void setNextPermutationCharDomain(PermutationCharDomain permutationCharDomain)
         {
         	permutationCharDomain.reset();
@@ -166,39 +384,593 @@ public class Permutations implements Enumeration<String> {
 
     @Override
     public boolean hasMoreElements() {
-        // TODO Auto-generated method stub
-        return (this.startChar > -1);
+        if (!this.nextFound && this.startChar > -1)
+        {
+            this.nextFound = findNextPermutation();
+        }
+        return this.nextFound;
     }
 
     @Override
     public String nextElement() throws NoSuchElementException {
-        // TODO Auto-generated method stub
-        if (this.startChar > -1)
+        if (hasMoreElements())
+        {
+            this.nextFound = false;
+            return this.currentPermutation.toString();
+        }
+        else
+        {
+            throw new NoSuchElementException("No more elements");
+        }
+    }
+
+    /*
+        Fills currentPermutation from startChar onwards with the next permutation accepted by the prefix predicate.
+        A rejected prefix moves straight on to the next character of its domain, so none of its completions are
+        generated, and an exhausted domain backtracks to the one before it.
+     */
+    private boolean findNextPermutation()
+    {
+        int i = this.startChar;
+        while (i > -1)
         {
-        	int i = this.startChar;
-            for (; i < this.permutationCharCount - 1; i++)
+            PermutationCharDomain permutationCharDomain = this.permutationCharDomains.get(i);
+            if (!permutationCharDomain.hasMoreElements())
             {
-                this.currentPermutation.setCharAt(i, this.permutationCharDomains.get(i).nextElement());
-                this.permutationCharDomains.get(i).setNextPermutationCharDomain(this.permutationCharDomains.get(i + 1));
+                i--;
+                continue;
             }
-            this.currentPermutation.setCharAt(i, this.permutationCharDomains.get(i).nextElement());
 
-            // Finding startChar for next iteration
-            this.startChar = this.permutationCharDomains.size() - 1;
-            for (; this.startChar > -1 && !this.permutationCharDomains.get(this.startChar).hasMoreElements(); this.startChar--)
+            setCurrentChar(i, permutationCharDomain.nextElement());
+            if (this.prefixPredicate != null && !this.prefixPredicate.accept(this.currentPermutation, i + 1))
+            {
+                continue;
+            }
+            if (i == this.permutationCharCount - 1)
             {
+                break;
             }
+            permutationCharDomain.setNextPermutationCharDomain(this.permutationCharDomains.get(i + 1));
+            i++;
+        }
+        this.startChar = i;
+        return (i > -1);
+    }
 
-            return this.currentPermutation.toString();
+    /*
+        Writes up to maxCount of the next permutations back to back into dest from offset, each one
+        permutationCharCount characters wide, and returns how many were written.
+     */
+    public int nextElements(char[] dest, int offset, int maxCount)
+    {
+        if (dest == null)
+        {
+            throw new NullPointerException();
         }
-        else
+        else if (offset < 0 || maxCount < 0 || offset + (long) maxCount * this.permutationCharCount > dest.length)
+        {
+            throw new IndexOutOfBoundsException("Destination array is too small for " + maxCount + " permutations");
+        }
+
+        int count = 0;
+        for (; count < maxCount && hasMoreElements(); count++)
+        {
+            this.nextFound = false;
+            this.currentPermutation.getChars(0, this.permutationCharCount, dest, offset + count * this.permutationCharCount);
+        }
+        return count;
+    }
+
+    /*
+        Same as nextElements(char[], int, int), bounded by the remaining space of the buffer, whose position is
+        moved past the written permutations.
+     */
+    public int nextElements(CharBuffer dest, int maxCount)
+    {
+        int count = Math.min(maxCount, dest.remaining() / this.permutationCharCount);
+
+        if (dest.hasArray())
+        {
+            count = nextElements(dest.array(), dest.arrayOffset() + dest.position(), count);
+            dest.position(dest.position() + count * this.permutationCharCount);
+            return count;
+        }
+
+        int i = 0;
+        for (; i < count && hasMoreElements(); i++)
+        {
+            this.nextFound = false;
+            for (int j = 0; j < this.permutationCharCount; j++)
+            {
+                dest.put(this.currentPermutation.charAt(j));
+            }
+        }
+        return i;
+    }
+
+    /*
+        Same as nextElements(CharBuffer, int) with one byte per character, which is both ASCII and UTF-8. Only
+        domain strings made of ASCII characters can be written this way.
+     */
+    public int nextElements(ByteBuffer dest, int maxCount)
+    {
+        if (this.domainChars[this.domainChars.length - 1] > 0x7F)
+        {
+            throw new IllegalStateException("Domain string has non-ASCII characters, which do not fit in one byte of UTF-8");
+        }
+
+        int count = Math.min(maxCount, dest.remaining() / this.permutationCharCount);
+        int i = 0;
+        for (; i < count && hasMoreElements(); i++)
+        {
+            this.nextFound = false;
+            for (int j = 0; j < this.permutationCharCount; j++)
+            {
+                dest.put((byte) this.currentPermutation.charAt(j));
+            }
+        }
+        return i;
+    }
+
+    /*
+        Sets a predicate that is asked about every prefix as it is built, so that a rejected prefix is skipped
+        together with all of its completions. The prefixes of the current position, such as one reached through
+        seek(), are checked when it is set, so it can be set at any time; permutations already returned are not
+        affected. A null predicate accepts everything.
+     */
+    public void setPrefixPredicate(PrefixPredicate prefixPredicate)
+    {
+        this.prefixPredicate = prefixPredicate;
+        checkFixedPrefixes();
+    }
+
+    /*
+        Returns a 64-bit fingerprint of the next permutation instead of the permutation itself, so no string is
+        created. The polynomial hash of every prefix is kept per position as the buffer is filled, so only the
+        positions that changed are hashed again. Equal to fingerprint() of the string nextElement() would return.
+     */
+    public long nextFingerprint() throws NoSuchElementException {
+        if (!hasMoreElements())
         {
             throw new NoSuchElementException("No more elements");
         }
+        this.nextFound = false;
+        return mixFingerprint(this.prefixFingerprints[this.permutationCharCount]);
+    }
+
+    public static long fingerprint(CharSequence s)
+    {
+        long fingerprint = FINGERPRINT_SEED;
+
+        for (int i = 0; i < s.length(); i++)
+        {
+            fingerprint = fingerprint * FINGERPRINT_MULTIPLIER + s.charAt(i);
+        }
+        return mixFingerprint(fingerprint);
+    }
+
+    // Finalizer of MurmurHash3, so that the low bits of fingerprints of similar strings are well spread
+    private static long mixFingerprint(long fingerprint)
+    {
+        fingerprint ^= fingerprint >>> 33;
+        fingerprint *= 0xFF51AFD7ED558CCDL;
+        fingerprint ^= fingerprint >>> 33;
+        fingerprint *= 0xC4CEB9FE1A85EC53L;
+        fingerprint ^= fingerprint >>> 33;
+        return fingerprint;
+    }
+
+    private void setCurrentChar(int position, char c)
+    {
+        this.currentPermutation.setCharAt(position, c);
+        this.prefixFingerprints[position + 1] = this.prefixFingerprints[position] * FINGERPRINT_MULTIPLIER + c;
+    }
+
+    /*
+        Returns the zero-based position of the permutation in the enumeration order.
+     */
+    public BigInteger rank(String permutation)
+    {
+        if (permutation == null)
+        {
+            throw new NullPointerException();
+        }
+        else if (permutation.length() != this.permutationCharCount)
+        {
+            throw new IllegalArgumentException("Length of permutation must be equal to the permutation character count");
+        }
+
+        int[] counts = this.domainCounts.clone();
+        BigInteger rank = BigInteger.ZERO;
+        for (int i = 0; i < this.permutationCharCount; i++)
+        {
+            int charIndex = Arrays.binarySearch(this.domainChars, permutation.charAt(i));
+            if (charIndex < 0 || counts[charIndex] == 0)
+            {
+                throw new IllegalArgumentException("\"" + permutation + "\" is not a permutation of the domain string");
+            }
+            for (int j = 0; j < charIndex; j++)
+            {
+                if (counts[j] > 0)
+                {
+                    counts[j]--;
+                    rank = rank.add(countArrangements(counts, this.permutationCharCount - i - 1));
+                    counts[j]++;
+                }
+            }
+            counts[charIndex]--;
+        }
+        return rank;
+    }
+
+    /*
+        Returns the permutation at the given zero-based position of the enumeration order.
+     */
+    public String unrank(BigInteger index)
+    {
+        int[] charIndexes = unrankCharIndexes(index);
+        char[] permutation = new char[this.permutationCharCount];
+
+        for (int i = 0; i < this.permutationCharCount; i++)
+        {
+            permutation[i] = this.domainChars[charIndexes[i]];
+        }
+        return new String(permutation);
+    }
+
+    /*
+        Positions the enumeration so that the next call to nextElement() returns the permutation at the given
+        index. An index equal to the number of permutations exhausts the enumeration.
+     */
+    public void seek(BigInteger index)
+    {
+        this.nextFound = false;
+        if (index != null && index.equals(count()))
+        {
+            this.startChar = -1;
+            return;
+        }
+
+        int[] charIndexes = unrankCharIndexes(index);
+        int i = 0;
+        for (; i < this.permutationCharCount - 1; i++)
+        {
+            PermutationCharDomain permutationCharDomain = this.permutationCharDomains.get(i);
+            char c = this.domainChars[charIndexes[i]];
+
+            permutationCharDomain.currentIndex = permutationCharDomain.indexOf(c);
+            permutationCharDomain.setNextPermutationCharDomain(this.permutationCharDomains.get(i + 1));
+            setCurrentChar(i, c);
+        }
+        // The last domain is left one before its target so that nextElement() lands on it
+        this.permutationCharDomains.get(i).currentIndex = this.permutationCharDomains.get(i).indexOf(this.domainChars[charIndexes[i]]) - 1;
+        this.startChar = i;
+        checkFixedPrefixes();
+    }
+
+    /*
+        Asks the prefix predicate about the prefixes that findNextPermutation() takes as already accepted, those
+        before startChar and also the whole permutation when one is pending. These were not built under the
+        predicate after seek(), restoring a cursor or setting the predicate late. The enumeration resumes after
+        the first rejected prefix, at the next character of its last domain.
+     */
+    private void checkFixedPrefixes()
+    {
+        if (this.prefixPredicate == null)
+        {
+            return;
+        }
+
+        int fixedLength = this.nextFound ? this.permutationCharCount : this.startChar;
+        for (int length = 1; length <= fixedLength; length++)
+        {
+            if (!this.prefixPredicate.accept(this.currentPermutation, length))
+            {
+                this.nextFound = false;
+                this.startChar = length - 1;
+                return;
+            }
+        }
+    }
+
+    private int[] unrankCharIndexes(BigInteger index)
+    {
+        if (index == null)
+        {
+            throw new NullPointerException();
+        }
+        else if (index.signum() < 0 || index.compareTo(count()) >= 0)
+        {
+            throw new IllegalArgumentException("Index is out of the range of permutations");
+        }
+
+        int[] counts = this.domainCounts.clone();
+        int[] charIndexes = new int[this.permutationCharCount];
+        for (int i = 0; i < this.permutationCharCount; i++)
+        {
+            for (int j = 0; j < counts.length; j++)
+            {
+                if (counts[j] > 0)
+                {
+                    counts[j]--;
+                    BigInteger arrangements = countArrangements(counts, this.permutationCharCount - i - 1);
+                    if (index.compareTo(arrangements) < 0)
+                    {
+                        charIndexes[i] = j;
+                        break;
+                    }
+                    index = index.subtract(arrangements);
+                    counts[j]++;
+                }
+            }
+        }
+        return charIndexes;
+    }
+
+    /*
+        Returns the number of distinct permutations of the enumeration, computed from the character counts
+        without enumerating.
+     */
+    public BigInteger count()
+    {
+        if (this.count == null)
+        {
+            this.count = countArrangements(this.domainCounts, this.permutationCharCount);
+        }
+        return this.count;
+    }
+
+    /*
+        Number of distinct arrangements of the given length drawn from a multiset with the given character counts,
+        built one character at a time: ways[r] = sum over i of C(r, i) * ways'[r - i].
+        Falls back to BigInteger arithmetic only when the result does not fit in a long.
+     */
+    private static BigInteger countArrangements(int[] counts, int length)
+    {
+        try
+        {
+            return BigInteger.valueOf(countArrangementsExact(counts, length));
+        }
+        catch (ArithmeticException e)
+        {
+            return countArrangementsBig(counts, length);
+        }
+    }
+
+    private static long countArrangementsExact(int[] counts, int length)
+    {
+        long[][] binomials = new long[length + 1][];
+        long[] ways = new long[length + 1];
+
+        for (int r = 0; r <= length; r++)
+        {
+            binomials[r] = new long[r + 1];
+            binomials[r][0] = binomials[r][r] = 1;
+            for (int i = 1; i < r; i++)
+            {
+                binomials[r][i] = Math.addExact(binomials[r - 1][i - 1], binomials[r - 1][i]);
+            }
+        }
+        ways[0] = 1;
+        for (int count : counts)
+        {
+            for (int r = length; r > 0; r--)
+            {
+                long total = ways[r];
+                for (int i = 1; i <= count && i <= r; i++)
+                {
+                    total = Math.addExact(total, Math.multiplyExact(binomials[r][i], ways[r - i]));
+                }
+                ways[r] = total;
+            }
+        }
+        return ways[length];
+    }
+
+    private static BigInteger countArrangementsBig(int[] counts, int length)
+    {
+        BigInteger[][] binomials = new BigInteger[length + 1][];
+        BigInteger[] ways = new BigInteger[length + 1];
+
+        for (int r = 0; r <= length; r++)
+        {
+            binomials[r] = new BigInteger[r + 1];
+            binomials[r][0] = binomials[r][r] = BigInteger.ONE;
+            for (int i = 1; i < r; i++)
+            {
+                binomials[r][i] = binomials[r - 1][i - 1].add(binomials[r - 1][i]);
+            }
+            ways[r] = (r == 0) ? BigInteger.ONE : BigInteger.ZERO;
+        }
+        for (int count : counts)
+        {
+            for (int r = length; r > 0; r--)
+            {
+                BigInteger total = ways[r];
+                for (int i = 1; i <= count && i <= r; i++)
+                {
+                    total = total.add(binomials[r][i].multiply(ways[r - i]));
+                }
+                ways[r] = total;
+            }
+        }
+        return ways[length];
+    }
+
+    /*
+        Passes every permutation, in the same order as the enumeration, to the visitor without creating any
+        object per permutation. Independent of the enumeration state, apart from honouring the prefix predicate.
+     */
+    public void visitAll(PermutationVisitor visitor)
+    {
+        if (visitor == null)
+        {
+            throw new NullPointerException();
+        }
+        char[] permutation = new char[this.permutationCharCount];
+        visit(visitor, permutation, CharBuffer.wrap(permutation), this.domainCounts.clone(), 0, this.permutationCharCount, this.permutationCharCount);
+    }
+
+    /*
+        Passes every distinct permutation of every length from minLength to maxLength to the visitor in one
+        depth-first pass, emitting each prefix as it is descended into so that shorter permutations come right
+        before their extensions. The lengths are not bound by the permutation character count but by the length of
+        the domain string. Honours the prefix predicate like visitAll().
+     */
+    public void visitAllLengths(int minLength, int maxLength, PermutationVisitor visitor)
+    {
+        if (visitor == null)
+        {
+            throw new NullPointerException();
+        }
+        else if (minLength <= 0 || minLength > maxLength || maxLength > this.domainString.length())
+        {
+            throw new IllegalArgumentException("Length range must be within 1 and the length of domain string");
+        }
+        char[] permutation = new char[maxLength];
+        visit(visitor, permutation, CharBuffer.wrap(permutation), this.domainCounts.clone(), 0, minLength, maxLength);
+    }
+
+    private void visit(PermutationVisitor visitor, char[] permutation, CharBuffer prefix, int[] counts, int depth, int minLength, int maxLength)
+    {
+        for (int i = 0; i < this.domainChars.length; i++)
+        {
+            if (counts[i] > 0)
+            {
+                permutation[depth] = this.domainChars[i];
+                if (this.prefixPredicate != null && !this.prefixPredicate.accept(prefix, depth + 1))
+                {
+                    continue;
+                }
+                if (depth + 1 >= minLength)
+                {
+                    visitor.visit(permutation, depth + 1);
+                }
+                if (depth + 1 < maxLength)
+                {
+                    counts[i]--;
+                    visit(visitor, permutation, prefix, counts, depth + 1, minLength, maxLength);
+                    counts[i]++;
+                }
+            }
+        }
+    }
+
+    /*
+        Passes every permutation to the visitor in a minimal-change order instead of the lexicographic one: each
+        permutation differs from the previous one by a single swap, so at most two positions change. Like
+        visitAll() it creates no object per permutation. The prefix predicate does not apply to this order.
+     */
+    public void visitMinimalChange(MinimalChangeVisitor visitor)
+    {
+        if (visitor == null)
+        {
+            throw new NullPointerException();
+        }
+        new MinimalChangeWalk(visitor).walk(this.permutationCharCount - 1);
+    }
+
+    /*
+        The buffer holds the whole domain: positions below permutationCharCount are the permutation and the rest is
+        a reservoir of unused characters. walk(position) keeps the positions after it fixed and brings every distinct
+        character of positions 0..position and of the reservoir to the given position in turn, each by one swap,
+        walking the positions before it in between. This visits every arrangement exactly once, whatever the
+        arrangement the walk starts from.
+     */
+    private class MinimalChangeWalk
+    {
+        private MinimalChangeVisitor visitor;
+        private char[] chars;
+        private int[] charIndexes;
+        private boolean[][] used;
+        private int firstChanged = -1, secondChanged = -1;
+
+        public MinimalChangeWalk(MinimalChangeVisitor visitor)
+        {
+            int length = 0;
+            for (int count : domainCounts)
+            {
+                length += count;
+            }
+
+            this.visitor = visitor;
+            this.chars = new char[length];
+            this.charIndexes = new int[length];
+            this.used = new boolean[permutationCharCount][domainChars.length];
+            for (int i = 0, j = 0; i < domainChars.length; i++)
+            {
+                for (int count = 0; count < domainCounts[i]; count++, j++)
+                {
+                    this.chars[j] = domainChars[i];
+                    this.charIndexes[j] = i;
+                }
+            }
+        }
+
+        public void walk(int position)
+        {
+            boolean[] used = this.used[position];
+
+            Arrays.fill(used, false);
+            while (true)
+            {
+                used[this.charIndexes[position]] = true;
+                if (position == 0)
+                {
+                    this.visitor.visit(this.chars, permutationCharCount, this.firstChanged, this.secondChanged);
+                    this.firstChanged = this.secondChanged = -1;
+                }
+                else
+                {
+                    walk(position - 1);
+                }
+
+                int swapPosition = findUnused(position, used);
+                if (swapPosition < 0)
+                {
+                    return;
+                }
+                swap(position, swapPosition);
+                this.firstChanged = position;
+                this.secondChanged = (swapPosition < permutationCharCount) ? swapPosition : -1;
+            }
+        }
+
+        private int findUnused(int position, boolean[] used)
+        {
+            for (int i = 0; i < position; i++)
+            {
+                if (!used[this.charIndexes[i]])
+                {
+                    return i;
+                }
+            }
+            for (int i = permutationCharCount; i < this.chars.length; i++)
+            {
+                if (!used[this.charIndexes[i]])
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void swap(int i, int j)
+        {
+            char c = this.chars[i];
+            int charIndex = this.charIndexes[i];
+
+            this.chars[i] = this.chars[j];
+            this.charIndexes[i] = this.charIndexes[j];
+            this.chars[j] = c;
+            this.charIndexes[j] = charIndex;
+        }
     }
 
     public static void main (String [] args)
     {
+        System.out.println(new Permutations("mississippi", 7).count() + " distinct permutations of 7 characters in \"mississippi\"");
+
         Enumeration<String> e = new Permutations("yellow", 4);
 
         while (e.hasMoreElements())
@@ -0,0 +1,113 @@
+package com.android.lewis.permutations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/*
+    A Java Enumeration implementation to return permutations of any symbols, such as the tokens of a sentence, without any duplication caused by repeated symbols.
+    Copyright (C) 2018 Lewis Tat Fong Choo Man
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see http://www.gnu.org/licenses/gpl.html.
+ */
+
+public class SymbolPermutations<T> implements Enumeration<List<T>> {
+
+    private IntPermutations intPermutations;
+    private List<T> symbolsById = new ArrayList<T>();
+
+    /*
+        Symbols that compare as equal are treated as the same symbol. They are given ids in ascending order and
+        permuted by an IntPermutations, so callers that already have symbol ids should use IntPermutations directly.
+     */
+    public SymbolPermutations (T[] symbols, int permutationSymbolCount, Comparator<? super T> comparator)
+    {
+        if (symbols == null || comparator == null)
+        {
+            throw new NullPointerException();
+        }
+
+        T[] sortedSymbols = symbols.clone();
+        int[] ids = new int[symbols.length];
+
+        Arrays.sort(sortedSymbols, comparator);
+        for (int i = 0; i < sortedSymbols.length; i++)
+        {
+            if (i == 0 || comparator.compare(sortedSymbols[i - 1], sortedSymbols[i]) != 0)
+            {
+                this.symbolsById.add(sortedSymbols[i]);
+            }
+        }
+        for (int i = 0; i < symbols.length; i++)
+        {
+            ids[i] = getId(symbols[i], comparator);
+        }
+        this.intPermutations = new IntPermutations(ids, permutationSymbolCount);
+    }
+
+    @SuppressWarnings("unchecked")
+    public SymbolPermutations (T[] symbols, int permutationSymbolCount)
+    {
+        this(symbols, permutationSymbolCount, (Comparator<? super T>) Comparator.naturalOrder());
+    }
+
+    private int getId(T symbol, Comparator<? super T> comparator)
+    {
+        int low = 0, high = this.symbolsById.size() - 1;
+
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(this.symbolsById.get(mid), symbol) < 0)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public boolean hasMoreElements() {
+        return this.intPermutations.hasMoreElements();
+    }
+
+    @Override
+    public List<T> nextElement() throws NoSuchElementException {
+        int[] ids = this.intPermutations.nextElement();
+        List<T> permutation = new ArrayList<T>(ids.length);
+
+        for (int id : ids)
+        {
+            permutation.add(this.symbolsById.get(id));
+        }
+        return permutation;
+    }
+
+    public static void main (String [] args)
+    {
+        Enumeration<List<String>> e = new SymbolPermutations<String>("the cat saw the dog".split(" "), 3);
+
+        while (e.hasMoreElements())
+        {
+             System.out.println(String.join(" ", e.nextElement()));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.android.lewis.benchmark;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+    A program to run the JMH benchmarks with the GC profiler and compare their scores with a saved baseline.
+    Copyright (C) 2018 Lewis Tat Fong Choo Man
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see http://www.gnu.org/licenses/gpl.html.
+ */
+
+public class BenchmarkRunner {
+
+	private static final String ALLOCATION_RATE_SUFFIX = "gc.alloc.rate.norm";
+
+	/*
+		The name of a result in the baseline file: the benchmark method followed by its parameters.
+	 */
+	private static String getName(BenchmarkParams params) {
+		StringBuilder name = new StringBuilder(params.getBenchmark());
+		for (String key : params.getParamsKeys()) {
+			name.append(':').append(key).append('=').append(params.getParam(key));
+		}
+		return name.toString();
+	}
+
+	private static Result<?> getAllocationResult(RunResult runResult) {
+		for (Map.Entry<String, Result> entry : runResult.getSecondaryResults().entrySet()) {
+			if (entry.getKey().endsWith(ALLOCATION_RATE_SUFFIX)) {
+				return entry.getValue();
+			}
+		}
+		return null;
+	}
+
+	/*
+		Usage: BenchmarkRunner [-save <file>] [-baseline <file>] [JMH options]
+		Runs the benchmarks selected by the JMH options with the GC profiler, then prints the score and the
+		allocated bytes per operation of each one, with the change of its score from the baseline file if given.
+		The scores are saved as properties to the -save file, which a later run can use as its baseline.
+	 */
+	public static void main (String [] params) throws Exception {
+		String saveFileName = null, baselineFileName = null;
+		List<String> jmhParams = new ArrayList<>();
+
+		for (int i = 0; i < params.length; i++) {
+			if (params[i].equals("-save") && i + 1 < params.length) {
+				saveFileName = params[++i];
+			} else if (params[i].equals("-baseline") && i + 1 < params.length) {
+				baselineFileName = params[++i];
+			} else {
+				jmhParams.add(params[i]);
+			}
+		}
+
+		Properties baseline = new Properties();
+		if (baselineFileName != null) {
+			try (InputStream input = new FileInputStream(baselineFileName)) {
+				baseline.load(input);
+			}
+		}
+
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(jmhParams.toArray(new String[0])))
+				.addProfiler(GCProfiler.class)
+				.build();
+		Collection<RunResult> runResults = new Runner(options).run();
+
+		Properties scores = new Properties();
+		System.out.println();
+		for (RunResult runResult : runResults) {
+			String name = getName(runResult.getParams());
+			Result<?> primaryResult = runResult.getPrimaryResult();
+			Result<?> allocationResult = getAllocationResult(runResult);
+			double score = primaryResult.getScore();
+
+			System.out.printf("%1$s: %2$.3f %3$s", name, score, primaryResult.getScoreUnit());
+			if (allocationResult != null) {
+				System.out.printf(", %1$.1f %2$s", allocationResult.getScore(), allocationResult.getScoreUnit());
+			}
+			String baselineScore = baseline.getProperty(name);
+			if (baselineScore != null) {
+				System.out.printf(", %1$+.1f%% from baseline", (score / Double.parseDouble(baselineScore) - 1) * 100);
+			}
+			System.out.println();
+			scores.setProperty(name, Double.toString(score));
+		}
+
+		if (saveFileName != null) {
+			try (OutputStream output = new FileOutputStream(saveFileName)) {
+				scores.store(output, "Benchmark scores");
+			} catch (IOException e) {
+				System.err.println("Cannot save the scores to " + saveFileName + ": " + e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.android.lewis.benchmark;
+
+import com.android.lewis.longestword.Combinations;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+    JMH benchmarks of the Combinations enumerator.
+    Copyright (C) 2018 Lewis Tat Fong Choo Man
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see http://www.gnu.org/licenses/gpl.html.
+ */
+
+/*
+	Same operations as PermutationsBenchmark: one result or one batch per operation from an enumerator rebuilt
+	once exhausted, and one complete visitor pass per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CombinationsBenchmark {
+
+	public static final int BATCH_SIZE = 1024;
+
+	@Param({"abcdefghijklmnopqrst", "abcdefghijklmnopqrstuvwxyz", "aaaabbbbccccddddeeee"})
+	public String domain;
+
+	@Param({"6", "10"})
+	public int k;
+
+	private Combinations combinations;
+	private Combinations visitorCombinations;
+	private char[] batch;
+
+	@Setup
+	public void setUp() {
+		combinations = new Combinations(domain, k);
+		visitorCombinations = new Combinations(domain, k);
+		batch = new char[BATCH_SIZE * k];
+	}
+
+	private Combinations getCombinations() {
+		if (!combinations.hasMoreElements()) {
+			combinations = new Combinations(domain, k);
+		}
+		return combinations;
+	}
+
+	@Benchmark
+	public String nextElement() {
+		return getCombinations().nextElement();
+	}
+
+	@Benchmark
+	public long nextFingerprint() {
+		return getCombinations().nextFingerprint();
+	}
+
+	@Benchmark
+	public void nextElements(Blackhole blackhole) {
+		blackhole.consume(getCombinations().nextElements(batch, 0, BATCH_SIZE));
+		blackhole.consume(batch);
+	}
+
+	@Benchmark
+	public void visitAll(Blackhole blackhole) {
+		visitorCombinations.visitAllLengths(k, k, (combination, length) -> blackhole.consume(combination[length - 1]));
+	}
+}
@@ -0,0 +1,98 @@
+package com.android.lewis.benchmark;
+
+import com.android.lewis.permutations.Permutations;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+    JMH benchmarks of the Permutations enumerator.
+    Copyright (C) 2018 Lewis Tat Fong Choo Man
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see http://www.gnu.org/licenses/gpl.html.
+ */
+
+/*
+	The enumeration, fingerprint and batch benchmarks take one result, or one batch, per operation from an
+	enumerator that is only rebuilt once it is exhausted, so the construction is spread over a whole enumeration.
+	The visitor benchmark is one complete visitAll() pass per operation, since the visitor does not consume the
+	enumerator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PermutationsBenchmark {
+
+	public static final int BATCH_SIZE = 1024;
+
+	@Param({"abcdefgh", "abcdefghij", "aaaabbbbcccc"})
+	public String domain;
+
+	@Param({"4", "8"})
+	public int k;
+
+	private Permutations permutations;
+	private Permutations visitorPermutations;
+	private char[] batch;
+
+	@Setup
+	public void setUp() {
+		permutations = new Permutations(domain, k);
+		visitorPermutations = new Permutations(domain, k);
+		batch = new char[BATCH_SIZE * k];
+	}
+
+	private Permutations getPermutations() {
+		if (!permutations.hasMoreElements()) {
+			permutations = new Permutations(domain, k);
+		}
+		return permutations;
+	}
+
+	@Benchmark
+	public String nextElement() {
+		return getPermutations().nextElement();
+	}
+
+	@Benchmark
+	public long nextFingerprint() {
+		return getPermutations().nextFingerprint();
+	}
+
+	@Benchmark
+	public void nextElements(Blackhole blackhole) {
+		blackhole.consume(getPermutations().nextElements(batch, 0, BATCH_SIZE));
+		blackhole.consume(batch);
+	}
+
+	@Benchmark
+	public void visitAll(Blackhole blackhole) {
+		visitorPermutations.visitAll((permutation, length) -> blackhole.consume(permutation[length - 1]));
+	}
+}